@@ -0,0 +1,194 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+
+public interface ImmutableDoubleList {
+
+    static ImmutableDoubleList empty() {
+        return new ImmutableDoubleListImpl(new double[0], 0);
+    }
+
+    static ImmutableDoubleList of(double item) {
+        return new ImmutableDoubleListImpl(new double[]{item}, 1);
+    }
+
+    static ImmutableDoubleList ofAll(double... items) {
+        return new ImmutableDoubleListImpl(items.clone(), items.length);
+    }
+
+    ImmutableDoubleList add(double item);
+
+    ImmutableDoubleList addAll(double... items);
+
+    ImmutableDoubleList combine(ImmutableDoubleList other);
+
+    void forEach(DoubleConsumer action);
+
+    int size();
+
+    double get(int index);
+
+    int indexOf(double item);
+
+    boolean contains(double item);
+
+    double sum();
+
+    OptionalDouble min();
+
+    OptionalDouble max();
+
+    DoubleStream stream();
+
+    double[] toArray();
+}
+
+final class ImmutableDoubleListImpl implements ImmutableDoubleList {
+
+    private static final int MIN_GROWTH = 8;
+    private static final AtomicIntegerFieldUpdater<ImmutableDoubleListImpl> CAPACITY =
+            AtomicIntegerFieldUpdater.newUpdater(ImmutableDoubleListImpl.class, "capacity");
+
+    // values 0..size of array belong to this version, later slots are claimed by at most one derived version
+    private final double[] array;
+    private final int size;
+    private volatile int capacity;
+
+    ImmutableDoubleListImpl(double[] array, int size) {
+        this.array = array;
+        this.size = size;
+        this.capacity = size;
+    }
+
+    @Override
+    public ImmutableDoubleListImpl add(double item) {
+        var size = this.size;
+        if (size < array.length && CAPACITY.compareAndSet(this, size, size + 1)) {
+            array[size] = item;
+            return new ImmutableDoubleListImpl(array, size + 1);
+        }
+        var newArray = grow(1);
+        newArray[size] = item;
+        return new ImmutableDoubleListImpl(newArray, size + 1);
+    }
+
+    @Override
+    public ImmutableDoubleListImpl addAll(double... items) {
+        return addAll(items, items.length);
+    }
+
+    @Override
+    public ImmutableDoubleList combine(ImmutableDoubleList other) {
+        if (size == 0) {
+            return other;
+        }
+        if (other instanceof ImmutableDoubleListImpl impl) {
+            return addAll(impl.array, impl.size);
+        }
+        return addAll(other.toArray());
+    }
+
+    private ImmutableDoubleListImpl addAll(double[] items, int count) {
+        if (count == 0) {
+            return this;
+        }
+        var size = this.size;
+        var newSize = size + count;
+        if (newSize <= array.length && CAPACITY.compareAndSet(this, size, newSize)) {
+            System.arraycopy(items, 0, array, size, count);
+            return new ImmutableDoubleListImpl(array, newSize);
+        }
+        var newArray = grow(count);
+        System.arraycopy(items, 0, newArray, size, count);
+        return new ImmutableDoubleListImpl(newArray, newSize);
+    }
+
+    private double[] grow(int count) {
+        var newCapacity = Math.max(size + count, size + Math.max(size >> 1, MIN_GROWTH));
+        var newArray = new double[newCapacity];
+        System.arraycopy(array, 0, newArray, 0, size);
+        return newArray;
+    }
+
+    @Override
+    public void forEach(DoubleConsumer action) {
+        var array = this.array;
+        for (int idx = 0, size = this.size; idx < size; idx++) {
+            action.accept(array[idx]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        Objects.checkIndex(index, size);
+        return array[index];
+    }
+
+    @Override
+    public int indexOf(double item) {
+        for (var idx = 0; idx < size; idx++) {
+            if (Double.compare(array[idx], item) == 0) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(double item) {
+        return indexOf(item) >= 0;
+    }
+
+    @Override
+    public double sum() {
+        double sum = 0;
+        for (var idx = 0; idx < size; idx++) {
+            sum += array[idx];
+        }
+        return sum;
+    }
+
+    @Override
+    public OptionalDouble min() {
+        if (size == 0) {
+            return OptionalDouble.empty();
+        }
+        var min = array[0];
+        for (var idx = 1; idx < size; idx++) {
+            min = Math.min(min, array[idx]);
+        }
+        return OptionalDouble.of(min);
+    }
+
+    @Override
+    public OptionalDouble max() {
+        if (size == 0) {
+            return OptionalDouble.empty();
+        }
+        var max = array[0];
+        for (var idx = 1; idx < size; idx++) {
+            max = Math.max(max, array[idx]);
+        }
+        return OptionalDouble.of(max);
+    }
+
+    @Override
+    public DoubleStream stream() {
+        return Arrays.stream(array, 0, size);
+    }
+
+    @Override
+    public double[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+}
@@ -0,0 +1,194 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+public interface ImmutableIntList {
+
+    static ImmutableIntList empty() {
+        return new ImmutableIntListImpl(new int[0], 0);
+    }
+
+    static ImmutableIntList of(int item) {
+        return new ImmutableIntListImpl(new int[]{item}, 1);
+    }
+
+    static ImmutableIntList ofAll(int... items) {
+        return new ImmutableIntListImpl(items.clone(), items.length);
+    }
+
+    ImmutableIntList add(int item);
+
+    ImmutableIntList addAll(int... items);
+
+    ImmutableIntList combine(ImmutableIntList other);
+
+    void forEach(IntConsumer action);
+
+    int size();
+
+    int get(int index);
+
+    int indexOf(int item);
+
+    boolean contains(int item);
+
+    long sum();
+
+    OptionalInt min();
+
+    OptionalInt max();
+
+    IntStream stream();
+
+    int[] toArray();
+}
+
+final class ImmutableIntListImpl implements ImmutableIntList {
+
+    private static final int MIN_GROWTH = 8;
+    private static final AtomicIntegerFieldUpdater<ImmutableIntListImpl> CAPACITY =
+            AtomicIntegerFieldUpdater.newUpdater(ImmutableIntListImpl.class, "capacity");
+
+    // values 0..size of array belong to this version, later slots are claimed by at most one derived version
+    private final int[] array;
+    private final int size;
+    private volatile int capacity;
+
+    ImmutableIntListImpl(int[] array, int size) {
+        this.array = array;
+        this.size = size;
+        this.capacity = size;
+    }
+
+    @Override
+    public ImmutableIntListImpl add(int item) {
+        var size = this.size;
+        if (size < array.length && CAPACITY.compareAndSet(this, size, size + 1)) {
+            array[size] = item;
+            return new ImmutableIntListImpl(array, size + 1);
+        }
+        var newArray = grow(1);
+        newArray[size] = item;
+        return new ImmutableIntListImpl(newArray, size + 1);
+    }
+
+    @Override
+    public ImmutableIntListImpl addAll(int... items) {
+        return addAll(items, items.length);
+    }
+
+    @Override
+    public ImmutableIntList combine(ImmutableIntList other) {
+        if (size == 0) {
+            return other;
+        }
+        if (other instanceof ImmutableIntListImpl impl) {
+            return addAll(impl.array, impl.size);
+        }
+        return addAll(other.toArray());
+    }
+
+    private ImmutableIntListImpl addAll(int[] items, int count) {
+        if (count == 0) {
+            return this;
+        }
+        var size = this.size;
+        var newSize = size + count;
+        if (newSize <= array.length && CAPACITY.compareAndSet(this, size, newSize)) {
+            System.arraycopy(items, 0, array, size, count);
+            return new ImmutableIntListImpl(array, newSize);
+        }
+        var newArray = grow(count);
+        System.arraycopy(items, 0, newArray, size, count);
+        return new ImmutableIntListImpl(newArray, newSize);
+    }
+
+    private int[] grow(int count) {
+        var newCapacity = Math.max(size + count, size + Math.max(size >> 1, MIN_GROWTH));
+        var newArray = new int[newCapacity];
+        System.arraycopy(array, 0, newArray, 0, size);
+        return newArray;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        var array = this.array;
+        for (int idx = 0, size = this.size; idx < size; idx++) {
+            action.accept(array[idx]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get(int index) {
+        Objects.checkIndex(index, size);
+        return array[index];
+    }
+
+    @Override
+    public int indexOf(int item) {
+        for (var idx = 0; idx < size; idx++) {
+            if (array[idx] == item) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(int item) {
+        return indexOf(item) >= 0;
+    }
+
+    @Override
+    public long sum() {
+        long sum = 0;
+        for (var idx = 0; idx < size; idx++) {
+            sum += array[idx];
+        }
+        return sum;
+    }
+
+    @Override
+    public OptionalInt min() {
+        if (size == 0) {
+            return OptionalInt.empty();
+        }
+        var min = array[0];
+        for (var idx = 1; idx < size; idx++) {
+            min = Math.min(min, array[idx]);
+        }
+        return OptionalInt.of(min);
+    }
+
+    @Override
+    public OptionalInt max() {
+        if (size == 0) {
+            return OptionalInt.empty();
+        }
+        var max = array[0];
+        for (var idx = 1; idx < size; idx++) {
+            max = Math.max(max, array[idx]);
+        }
+        return OptionalInt.of(max);
+    }
+
+    @Override
+    public IntStream stream() {
+        return Arrays.stream(array, 0, size);
+    }
+
+    @Override
+    public int[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+}
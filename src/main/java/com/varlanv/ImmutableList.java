@@ -1,44 +1,89 @@
 package com.varlanv;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public interface ImmutableList<T> {
+public interface ImmutableList<T> extends Iterable<T> {
 
     static <T> Collector<T, ?, ImmutableList<T>> toImmutableList() {
-        return Collectors.collectingAndThen(
-                Collectors.toList(),
-                ImmutableList::ofIterable
+        return toImmutableList(0);
+    }
+
+    static <T> Collector<T, ?, ImmutableList<T>> toImmutableList(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize cannot be negative");
+        }
+        return Collector.<T, ImmutableListImpl.BuilderImpl<T>, ImmutableList<T>>of(
+                () -> ImmutableListImpl.BuilderImpl.<T>accumulator(expectedSize),
+                ImmutableListImpl.BuilderImpl::add,
+                ImmutableListImpl.BuilderImpl::combine,
+                ImmutableListImpl.BuilderImpl::build
         );
     }
 
+    static <T> Builder<T> builder() {
+        return new ImmutableListImpl.BuilderImpl<>(0, true);
+    }
+
+    static <T> Builder<T> builder(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize cannot be negative");
+        }
+        return new ImmutableListImpl.BuilderImpl<>(expectedSize, true);
+    }
+
     static <T> ImmutableList<T> empty() {
-        return ofIterable(Collections.emptyList());
+        return SmallList.empty();
     }
 
     static <T> ImmutableList<T> ofIterable(Iterable<T> items) {
-        var capacity = 1;
-        var array = new Object[capacity];
-        array[0] = items;
-        return new ImmutableListImpl<>(array, 1);
+        return ImmutableListImpl.adopt(InternalUtil.toArray(items));
+    }
+
+    // wraps items without copying them, the caller promises never to mutate them afterwards
+    static <T> ImmutableList<T> viewOf(Iterable<T> items) {
+        if (items instanceof ImmutableList<T> list) {
+            return list;
+        }
+        var count = InternalUtil.sizeOfIterable(items);
+        if (count == 0) {
+            return empty();
+        }
+        return ImmutableListImpl.ofChunk(InternalUtil.chunkOf(items, count), count);
     }
 
     static <T> ImmutableList<T> ofArray(T[] items) {
-        return ofIterable(Arrays.asList(items));
+        if (items.length <= SmallList.MAX_SIZE) {
+            return SmallList.ofArray(items);
+        }
+        return ImmutableListImpl.adopt(Arrays.copyOf(items, items.length, Object[].class));
+    }
+
+    // takes ownership of items without copying them. The list reads the array in place from then on, so the caller
+    // must never write to it again: a later write would show through every version sharing it
+    static <T> ImmutableList<T> adoptArray(T[] items) {
+        return ImmutableListImpl.adopt(items);
     }
 
     static <T> ImmutableList<T> of(T item) {
-        var capacity = 1;
-        var array = new Object[capacity];
-        array[0] = item;
-        return new ImmutableListImpl<>(array, 1);
+        return SmallList.of(item);
     }
 
     @SafeVarargs
@@ -46,144 +91,232 @@ public interface ImmutableList<T> {
         return ofArray(items);
     }
 
-    ImmutableList<T> add(T item);
+    // the defaults below only rely on size, get and forEach, other implementations
+    // override whatever they can do better; derived versions are ImmutableListImpl holding this list as a chunk
 
-    ImmutableList<T> addIterable(Iterable<T> items);
+    default ImmutableList<T> add(T item) {
+        return ImmutableListImpl.wrap(this).add(item);
+    }
 
-    ImmutableList<T> combine(ImmutableList<T> other);
+    default ImmutableList<T> addIterable(Iterable<T> items) {
+        return ImmutableListImpl.wrap(this).addIterable(items);
+    }
 
-    void forEach(Consumer<? super T> action);
+    default ImmutableList<T> combine(ImmutableList<T> other) {
+        return ImmutableListImpl.wrap(this).combine(other);
+    }
 
-    void forEachIndexed(ObjIntConsumer<? super T> action);
+    default ImmutableList<T> compact() {
+        return this;
+    }
 
-    int size();
+    default ImmutableList<T> withMutations(Consumer<MutableView<T>> mutations) {
+        var wrapped = ImmutableListImpl.wrap(this);
+        var result = wrapped.withMutations(mutations);
+        return result == wrapped ? this : result;
+    }
 
-    Stream<T> stream();
+    // lazy views, each traversal runs the whole chain in a single pass over this list
+    default <R> ImmutableList<R> map(Function<? super T, ? extends R> mapper) {
+        return LazyList.of(this).map(mapper);
+    }
 
-    <R extends Collection<T>> R copyTo(Supplier<R> supplier);
-}
+    default ImmutableList<T> filter(Predicate<? super T> predicate) {
+        return LazyList.of(this).filter(predicate);
+    }
 
-final class ImmutableListImpl<T> implements ImmutableList<T> {
+    default <R> ImmutableList<R> flatMap(Function<? super T, ? extends Iterable<? extends R>> mapper) {
+        return LazyList.of(this).flatMap(mapper);
+    }
 
-    private final Object[] array;
-    private final int limit;
-    private volatile int capacity;
+    default ImmutableList<T> takeWhile(Predicate<? super T> predicate) {
+        return LazyList.of(this).takeWhile(predicate);
+    }
 
-    ImmutableListImpl(Object[] items, int limit) {
-        this.array = items;
-        this.limit = limit;
-        this.capacity = limit;
+    default ImmutableList<T> distinct() {
+        return LazyList.of(this).distinct();
     }
 
-    @Override
-    public ImmutableListImpl<T> add(T item) {
-        return addAny(item);
+    // windows sharing this list's elements, see SliceList
+    default ImmutableList<T> slice(int from, int to) {
+        return SliceList.of(this, from, to);
     }
 
-    @Override
-    public ImmutableListImpl<T> addIterable(Iterable<T> items) {
-        return addAny(items);
+    default ImmutableList<T> take(int count) {
+        return slice(0, Math.max(0, Math.min(count, size())));
     }
 
-    @Override
-    public ImmutableList<T> combine(ImmutableList<T> other) {
+    default ImmutableList<T> drop(int count) {
+        return slice(Math.max(0, Math.min(count, size())), size());
+    }
+
+    default ImmutableList<T> takeRight(int count) {
+        return drop(size() - Math.max(0, count));
+    }
+
+    default ImmutableList<T> dropRight(int count) {
+        return take(size() - Math.max(0, count));
+    }
+
+    // opts into a hash index from element to first position, built on the first lookup; versions derived
+    // with add extend it instead of building their own, after which contains, indexOf and containsAll are O(1)
+    default ImmutableList<T> indexed() {
+        return ImmutableListImpl.wrap(this).indexed();
+    }
+
+    // stable, the elements are flattened into one array and sorted there
+    default SortedImmutableList<T> sorted(Comparator<? super T> comparator) {
+        return SortedArrayList.sort(toArray(), comparator);
+    }
+
+    // a lazy view caches its elements in a dense array and keeps serving them from there
+    default ImmutableList<T> force() {
         return this;
     }
 
-    private ImmutableListImpl<T> fromAny(Object item) {
-        var newArray = Arrays.copyOf(array, array.length + (array.length >> 1));
-        newArray[array.length] = item;
-        return new ImmutableListImpl<>(newArray, limit + 1);
+    // dense copy of a lazy view's elements, cached like force()
+    default ImmutableList<T> materialize() {
+        return this;
     }
 
+    // implementations are equal to any other ImmutableList holding equal elements in the same order,
+    // and hash like java.util.List; use asList() to compare with a List
+
     @Override
-    public void forEach(Consumer<? super T> action) {
-        for (var idx = 0; idx < limit; idx++) {
-            var item = array[idx];
-            if (item instanceof Iterable<?> items) {
-                items.forEach(it -> {
-                    @SuppressWarnings("unchecked")
-                    var itCasted = (T) it;
-                    action.accept(itCasted);
-                });
-            } else {
-                @SuppressWarnings("unchecked")
-                var itCasted = (T) item;
-                action.accept(itCasted);
+    void forEach(Consumer<? super T> action);
+
+    default void forEachIndexed(ObjIntConsumer<? super T> action) {
+        for (int idx = 0, size = size(); idx < size; idx++) {
+            action.accept(get(idx), idx);
+        }
+    }
+
+    int size();
+
+    T get(int index);
+
+    default T getFirst() {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return get(0);
+    }
+
+    default T getLast() {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return get(size() - 1);
+    }
+
+    default int indexOf(Object item) {
+        for (int idx = 0, size = size(); idx < size; idx++) {
+            if (Objects.equals(item, get(idx))) {
+                return idx;
             }
         }
+        return -1;
     }
 
-    @Override
-    public void forEachIndexed(ObjIntConsumer<? super T> action) {
-//        var counter = 0;
-//        for (var idx = 0; idx < limit; idx++) {
-//            for (var item : array[idx]) {
-//                action.accept(item, counter++);
-//            }
-//        }
+    default boolean contains(Object item) {
+        return indexOf(item) >= 0;
     }
 
-    @Override
-    public int size() {
-        var count = 0;
-        for (int i = 0, limit = this.limit; i < limit; i++) {
-            var o = array[i];
-            if (o instanceof Iterable<?> iterable) {
-                for (var object : iterable) {
-                    count++;
-                }
-            } else {
-                count++;
+    default boolean containsAll(Iterable<?> items) {
+        return InternalUtil.containsAll(this, items);
+    }
+
+    default int lastIndexOf(Object item) {
+        for (var idx = size() - 1; idx >= 0; idx--) {
+            if (Objects.equals(item, get(idx))) {
+                return idx;
             }
         }
-        return count;
+        return -1;
     }
 
     @Override
-    public Stream<T> stream() {
-        return Stream.empty();
+    default Iterator<T> iterator() {
+        return new InternalUtil.IndexedIterator<>(this, 0, size());
     }
 
     @Override
-    public <R extends Collection<T>> R copyTo(Supplier<R> supplier) {
+    default Spliterator<T> spliterator() {
+        return new InternalUtil.IndexedSpliterator<>(this, 0, size());
+    }
+
+    // unmodifiable java.util.List over this list, nothing is copied
+    default List<T> asList() {
+        return ListView.of(this);
+    }
+
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    default Object[] toArray() {
+        var array = new Object[size()];
+        @SuppressWarnings("unchecked")
+        var arrayCasted = (T[]) array;
+        copyInto(arrayCasted, 0);
+        return array;
+    }
+
+    default T[] toArray(IntFunction<T[]> generator) {
+        var array = generator.apply(size());
+        copyInto(array, 0);
+        return array;
+    }
+
+    // copies every element into dest starting at offset, dest must have room for all of them
+    default void copyInto(T[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, size(), dest.length);
+        forEachIndexed((item, idx) -> dest[offset + idx] = item);
+    }
+
+    default <R extends Collection<T>> R copyTo(Supplier<R> supplier) {
         var r = supplier.get();
-        forEach(r::add);
+        // both grow once for the whole list, ArrayList then copies our array in one go
+        if (r instanceof ArrayList<?> || r instanceof ArrayDeque<?>) {
+            r.addAll(asList());
+        } else {
+            forEach(r::add);
+        }
         return r;
     }
 
-    private ImmutableListImpl<T> addAny(Object item) {
-        Object[] objects = Arrays.copyOf(array, array.length + 1);
-        objects[array.length] = item;
-        return new ImmutableListImpl<>(objects, objects.length);
-//        var cap = capacity;
-//        if (cap == array.length) {
-//            return fromAny(item);
-//        } else {
-//            synchronized (this) {
-//                cap = capacity;
-//                if (cap == array.length) {
-//                    return fromAny(item);
-//                } else {
-//                    array[cap++] = item;
-//                    this.capacity = cap;
-//                    return new ImmutableListImpl<>(array, limit + 1);
-//                }
-//            }
-//        }
+    // single-owner, not thread-safe; build() can be called repeatedly and copies elements only into a SmallList
+    interface Builder<T> {
+
+        Builder<T> add(T item);
+
+        Builder<T> addAll(Iterable<? extends T> items);
+
+        Builder<T> addAll(ImmutableList<? extends T> items);
+
+        int size();
+
+        ImmutableList<T> build();
     }
-}
 
-final class InternalUtil {
+    // edits applied in place and published as one version when the withMutations callback returns;
+    // only usable inside that callback and on the thread running it, fails with IllegalStateException otherwise
+    interface MutableView<T> {
 
-    static int sizeOfIterable(Iterable<?> iterable) {
-        if (iterable instanceof Collection<?> collection) {
-            return collection.size();
-        }
-        var counter = 0;
-        for (var ignore : iterable) {
-            counter++;
-        }
-        return counter;
+        MutableView<T> add(T item);
+
+        MutableView<T> addAll(Iterable<? extends T> items);
+
+        MutableView<T> set(int index, T item);
+
+        MutableView<T> removeLast();
+
+        T get(int index);
+
+        int size();
     }
 }
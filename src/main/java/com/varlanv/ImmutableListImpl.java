@@ -0,0 +1,1315 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+final class ImmutableListImpl<T> implements ImmutableList<T> {
+
+    private static final int MIN_GROWTH = 8;
+    // lists with at most this many chunks are combined by copying their chunk references
+    private static final int INLINE_CHUNKS = 8;
+    // nesting deeper than this is flattened into leaf chunks on combine
+    private static final int MAX_DEPTH = 16;
+    // runs of adjacent chunks smaller than this are merged into one Object[] chunk by compaction
+    private static final int SMALL_CHUNK = 32;
+    // compaction also merges a chunk into the one before it while that one is less than twice as large, like carries
+    // of a binary counter, so chunk sizes at least double towards the front; merged chunks stop growing at this size
+    private static final int MAX_MERGED_CHUNK = 1 << 16;
+    // copying the array of a list with at least this many chunks compacts it, which keeps the chunk count logarithmic
+    private static final int COMPACT_MIN_CHUNKS = 64;
+    private static final Object[] NO_CHUNKS = {};
+    private static final int[] NO_ENDS = {};
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ImmutableListImpl> CAPACITY =
+            AtomicIntegerFieldUpdater.newUpdater(ImmutableListImpl.class, "capacity");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ImmutableListImpl, ElementIndex> INDEX =
+            AtomicReferenceFieldUpdater.newUpdater(ImmutableListImpl.class, ElementIndex.class, "index");
+
+    // array[i] is a single element when the chunk counts exactly one element, otherwise an Object[]
+    // snapshot, an ImmutableList or a viewed Iterable; ends[i] is the number of elements in chunks 0..i, shared with the array by all versions
+    private final Object[] array;
+    private final int[] ends;
+    private final int limit;
+    private final int size;
+    // how many ImmutableList chunks are nested below this one at most
+    private final int depth;
+    private volatile int capacity;
+    // set by indexed() and handed on to versions derived with add, see ElementIndex
+    private volatile ElementIndex index;
+    // racy single check like String's, 0 until computed; a list hashing to 0 just recomputes it every time
+    private int hash;
+
+    ImmutableListImpl(Object[] items, int[] ends, int limit, int depth) {
+        this(items, ends, limit, depth, null);
+    }
+
+    private ImmutableListImpl(Object[] items, int[] ends, int limit, int depth, ElementIndex index) {
+        this.array = items;
+        this.ends = ends;
+        this.limit = limit;
+        this.size = limit == 0 ? 0 : ends[limit - 1];
+        this.depth = depth;
+        this.capacity = limit;
+        this.index = index;
+    }
+
+    // a list holding the given one as its only chunk, to derive new versions from
+    static <T> ImmutableListImpl<T> wrap(ImmutableList<T> list) {
+        if (list instanceof ImmutableListImpl<T> impl) {
+            return impl;
+        }
+        var count = list.size();
+        if (count <= 1) {
+            return ofChunk(count == 0 ? null : list.get(0), count);
+        }
+        return new ImmutableListImpl<>(new Object[]{list}, new int[]{count}, 1, 1);
+    }
+
+    // one chunk per element, with room for adds up to MIN_GROWTH elements to claim in place
+    static <T> ImmutableListImpl<T> ofElements(Object... items) {
+        var array = Arrays.copyOf(items, Math.max(items.length, MIN_GROWTH));
+        var ends = new int[array.length];
+        for (var idx = 0; idx < items.length; idx++) {
+            ends[idx] = idx + 1;
+        }
+        return new ImmutableListImpl<>(array, ends, items.length, 0);
+    }
+
+    // takes ownership of items, whatever their array type, see ImmutableList.adoptArray
+    static <T> ImmutableList<T> adopt(Object[] items) {
+        if (items.length <= SmallList.MAX_SIZE) {
+            return SmallList.ofArray(items);
+        }
+        return ofChunk(items, items.length);
+    }
+
+    // an empty one shares zero-length arrays, which no add can claim a slot of
+    static <T> ImmutableListImpl<T> ofChunk(Object chunk, int count) {
+        if (count == 0) {
+            return new ImmutableListImpl<>(NO_CHUNKS, NO_ENDS, 0, 0);
+        }
+        return new ImmutableListImpl<>(new Object[]{chunk}, new int[]{count}, 1, 0);
+    }
+
+    // results of up to SmallList.MAX_SIZE elements are handed out as SmallList, the empty one shared
+    static <T> ImmutableList<T> orSmall(ImmutableListImpl<T> list) {
+        return list.size > SmallList.MAX_SIZE ? list : SmallList.ofArray(list.toArray());
+    }
+
+    @Override
+    public ImmutableListImpl<T> add(T item) {
+        return addAny(item, 1, 0);
+    }
+
+    @Override
+    public ImmutableListImpl<T> addIterable(Iterable<T> items) {
+        var array = InternalUtil.toArray(items);
+        return addAny(InternalUtil.chunkOf(array), array.length, 0);
+    }
+
+    @Override
+    public ImmutableList<T> combine(ImmutableList<T> other) {
+        var count = other.size();
+        if (count == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return other;
+        }
+        if (other instanceof ImmutableListImpl<T> impl) {
+            if (impl.limit <= INLINE_CHUNKS) {
+                return addChunks(impl);
+            }
+            if (impl.depth >= MAX_DEPTH) {
+                var event = new ListEvents.Compaction();
+                event.begin();
+                var flat = impl.flattenChunks();
+                event.end("flatten", impl.limit, flat.limit, count);
+                return addChunks(flat);
+            }
+            return addAny(impl, count, impl.depth + 1);
+        }
+        if (other instanceof SmallList<T>) {
+            return addAny(count == 1 ? other.get(0) : other.toArray(), count, 0);
+        }
+        return addAny(count == 1 ? other.get(0) : other, count, 1);
+    }
+
+    private ImmutableListImpl<T> fromAny(Object item, int count, int itemDepth) {
+        if (limit >= COMPACT_MIN_CHUNKS && compactable()) {
+            // the copy is paid anyway, merge chunks while making it
+            return compacted(true).addAny(item, count, itemDepth);
+        }
+        var newCapacity = limit + Math.max(limit >> 1, MIN_GROWTH);
+        var event = new ListEvents.ArrayCopy();
+        event.begin();
+        var depth = Math.max(this.depth, itemDepth);
+        var newArray = new Object[newCapacity];
+        var newEnds = new int[newCapacity];
+        System.arraycopy(array, 0, newArray, 0, limit);
+        System.arraycopy(ends, 0, newEnds, 0, limit);
+        newArray[limit] = item;
+        newEnds[limit] = size + count;
+        event.end(limit, size);
+        return new ImmutableListImpl<>(newArray, newEnds, limit + 1, depth, forkedIndex());
+    }
+
+    private ImmutableListImpl<T> addChunks(ImmutableListImpl<T> other) {
+        var limit = this.limit;
+        var newLimit = limit + other.limit;
+        var depth = Math.max(this.depth, other.depth);
+        if (newLimit <= array.length) {
+            if (CAPACITY.compareAndSet(this, limit, newLimit)) {
+                copyChunks(other, array, ends);
+                return new ImmutableListImpl<>(array, ends, newLimit, depth, index);
+            }
+            ListEvents.slotTaken(limit, size);
+        }
+        if (limit >= COMPACT_MIN_CHUNKS && compactable()) {
+            return compacted(true).addChunks(other);
+        }
+        var event = new ListEvents.ArrayCopy();
+        event.begin();
+        var newCapacity = Math.max(newLimit, limit + Math.max(limit >> 1, MIN_GROWTH));
+        var newArray = new Object[newCapacity];
+        var newEnds = new int[newCapacity];
+        System.arraycopy(array, 0, newArray, 0, limit);
+        System.arraycopy(ends, 0, newEnds, 0, limit);
+        copyChunks(other, newArray, newEnds);
+        event.end(limit, size);
+        return new ImmutableListImpl<>(newArray, newEnds, newLimit, depth, forkedIndex());
+    }
+
+    private void copyChunks(ImmutableListImpl<T> other, Object[] toArray, int[] toEnds) {
+        System.arraycopy(other.array, 0, toArray, limit, other.limit);
+        for (var idx = 0; idx < other.limit; idx++) {
+            toEnds[limit + idx] = size + other.ends[idx];
+        }
+    }
+
+    @Override
+    public ImmutableListImpl<T> compact() {
+        return compactable() ? compacted(false) : this;
+    }
+
+    @Override
+    public ImmutableList<T> withMutations(Consumer<MutableView<T>> mutations) {
+        var view = new TransientImpl<>(this);
+        try {
+            mutations.accept(view);
+            return view.publish();
+        } finally {
+            view.owner = null;
+        }
+    }
+
+    // whether compacted would merge anything; its first merge is always of two adjacent chunks of this list
+    private boolean compactable() {
+        var previousCount = 0;
+        var previousMergeable = false;
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var count = ends[idx] - start;
+            var mergeable = isMergeable(array[idx], count);
+            if (previousMergeable && mergeable && mergesInto(previousCount, previousCount < SMALL_CHUNK, count)) {
+                return true;
+            }
+            previousCount = count;
+            previousMergeable = mergeable;
+        }
+        return false;
+    }
+
+    // same elements with runs of small chunks, and chunks not half the size of the one before them, merged into
+    // Object[] chunks; the arrays have room to grow when growing, otherwise they are exactly as long as needed
+    private ImmutableListImpl<T> compacted(boolean growing) {
+        var event = new ListEvents.Compaction();
+        event.begin();
+        // planned chunk i merges the chunks from[i] up to from[i + 1] of this list, counting counts[i] elements;
+        // small[i] is set while all of them are small, mergeable[i] unless it is one large nested list or iterable
+        var from = new int[limit];
+        var counts = new int[limit];
+        var small = new boolean[limit];
+        var mergeable = new boolean[limit];
+        var newLimit = 0;
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var count = ends[idx] - start;
+            from[newLimit] = idx;
+            counts[newLimit] = count;
+            small[newLimit] = count < SMALL_CHUNK;
+            mergeable[newLimit] = isMergeable(array[idx], count);
+            newLimit++;
+            while (newLimit >= 2 && mergeable[newLimit - 2] && mergeable[newLimit - 1]
+                    && mergesInto(counts[newLimit - 2], small[newLimit - 2], counts[newLimit - 1], small[newLimit - 1])) {
+                newLimit--;
+                counts[newLimit - 1] += counts[newLimit];
+                small[newLimit - 1] &= small[newLimit];
+            }
+        }
+        var capacity = growing ? newLimit + Math.max(newLimit >> 1, MIN_GROWTH) : newLimit;
+        var newArray = new Object[capacity];
+        var newEnds = new int[capacity];
+        var newDepth = 0;
+        for (var planned = 0; planned < newLimit; planned++) {
+            var first = from[planned];
+            var last = planned + 1 < newLimit ? from[planned + 1] : limit;
+            var start = first == 0 ? 0 : ends[first - 1];
+            if (last - first == 1) {
+                var item = array[first];
+                if (ends[first] - start != 1 && item instanceof ImmutableList<?> nested) {
+                    newDepth = Math.max(newDepth, nested instanceof ImmutableListImpl<?> impl ? impl.depth + 1 : 1);
+                }
+                newArray[planned] = item;
+            } else {
+                var merged = new Object[counts[planned]];
+                for (int idx = first, chunkStart = start; idx < last; chunkStart = ends[idx++]) {
+                    InternalUtil.copyElements(array[idx], ends[idx] - chunkStart, merged, chunkStart - start);
+                }
+                newArray[planned] = merged;
+            }
+            newEnds[planned] = ends[last - 1];
+        }
+        event.end("compact", limit, newLimit, size);
+        return new ImmutableListImpl<>(newArray, newEnds, newLimit, newDepth, forkedIndex());
+    }
+
+    // large nested lists and viewed iterables are kept by reference, everything else may be copied into a merged chunk
+    private static boolean isMergeable(Object chunk, int count) {
+        return count < SMALL_CHUNK || chunk instanceof Object[];
+    }
+
+    private static boolean mergesInto(int previousCount, boolean previousSmall, int count) {
+        return mergesInto(previousCount, previousSmall, count, count < SMALL_CHUNK);
+    }
+
+    private static boolean mergesInto(int previousCount, boolean previousSmall, int count, boolean small) {
+        return previousCount + count <= MAX_MERGED_CHUNK && (previousSmall && small || previousCount < 2 * count);
+    }
+
+    void copyElements(Object[] dest, int offset) {
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            InternalUtil.copyElements(array[idx], ends[idx] - start, dest, offset + start);
+        }
+    }
+
+    @Override
+    public void copyInto(T[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, size, dest.length);
+        copyElements(dest, offset);
+    }
+
+    // same elements with every nested ImmutableListImpl replaced by its own chunks, without copying elements
+    private ImmutableListImpl<T> flattenChunks() {
+        var flat = ImmutableListImpl.<T>ofChunk(null, 0);
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var chunk = array[idx];
+            var count = ends[idx] - start;
+            if (count != 1 && chunk instanceof ImmutableListImpl<?> nested) {
+                @SuppressWarnings("unchecked")
+                var nestedCasted = (ImmutableListImpl<T>) nested;
+                flat = flat.addChunks(nestedCasted.flattenChunks());
+            } else {
+                flat = flat.addAny(chunk, count, 0);
+            }
+        }
+        return flat;
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var item = array[idx];
+            var count = ends[idx] - start;
+            if (count == 1) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) item;
+                action.accept(itCasted);
+            } else {
+                InternalUtil.forEachInRange(item, 0, count, count, action);
+            }
+        }
+    }
+
+    @Override
+    public void forEachIndexed(ObjIntConsumer<? super T> action) {
+        forEachIndexed(action, 0);
+    }
+
+    void forEachIndexed(ObjIntConsumer<? super T> action, int offset) {
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var item = array[idx];
+            if (ends[idx] - start == 1) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) item;
+                action.accept(itCasted, offset + start);
+            } else {
+                InternalUtil.forEachIndexed(item, offset + start, ends[idx] - start, action);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        var idx = chunkIndexOf(index);
+        var start = idx == 0 ? 0 : ends[idx - 1];
+        var item = array[idx];
+        if (ends[idx] - start != 1) {
+            item = InternalUtil.elementAt(item, index - start);
+        }
+        @SuppressWarnings("unchecked")
+        var itCasted = (T) item;
+        return itCasted;
+    }
+
+    @Override
+    public int indexOf(Object item) {
+        var index = this.index;
+        if (index != null) {
+            return index.indexOf(this, item);
+        }
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var chunk = array[idx];
+            if (ends[idx] - start == 1) {
+                if (Objects.equals(item, chunk)) {
+                    return start;
+                }
+            } else {
+                var found = InternalUtil.indexOf(chunk, ends[idx] - start, item);
+                if (found >= 0) {
+                    return start + found;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public ImmutableListImpl<T> indexed() {
+        if (index == null) {
+            INDEX.compareAndSet(this, null, new ElementIndex());
+        }
+        return this;
+    }
+
+    @Override
+    public boolean containsAll(Iterable<?> items) {
+        if (index == null) {
+            return InternalUtil.containsAll(this, items);
+        }
+        for (var item : items) {
+            if (!contains(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a list copied from this one keeps positions, so its index builds on this list's
+    private ElementIndex forkedIndex() {
+        var index = this.index;
+        return index == null ? null : index.forkedAt(size);
+    }
+
+    @Override
+    public int lastIndexOf(Object item) {
+        for (var idx = limit - 1; idx >= 0; idx--) {
+            var start = idx == 0 ? 0 : ends[idx - 1];
+            var chunk = array[idx];
+            if (ends[idx] - start == 1) {
+                if (Objects.equals(item, chunk)) {
+                    return start;
+                }
+            } else {
+                var found = InternalUtil.lastIndexOf(chunk, ends[idx] - start, item);
+                if (found >= 0) {
+                    return start + found;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // index of the chunk holding the element at the given list index
+    private int chunkIndexOf(int index) {
+        var found = Arrays.binarySearch(ends, 0, limit, index);
+        return found >= 0 ? found + 1 : -(found + 1);
+    }
+
+    void forEachInRange(int from, int to, Consumer<? super T> action) {
+        if (from >= to) {
+            return;
+        }
+        var idx = chunkIndexOf(from);
+        for (var start = idx == 0 ? 0 : ends[idx - 1]; start < to; start = ends[idx++]) {
+            var end = ends[idx];
+            var item = array[idx];
+            if (end - start == 1) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) item;
+                action.accept(itCasted);
+            } else {
+                InternalUtil.forEachInRange(item, Math.max(from, start) - start, Math.min(to, end) - start, end - start, action);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new ChunkSpliterator<>(this, 0, size);
+    }
+
+    Spliterator<T> spliterator(int from, int to) {
+        return new ChunkSpliterator<>(this, from, to);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ChunkIterator<>(this, 0, size);
+    }
+
+    Iterator<T> iterator(int from, int to) {
+        return new ChunkIterator<>(this, from, to);
+    }
+
+    // chunks held by reference in both lists at the same position are skipped, which makes versions
+    // derived from a common base cost only the chunks they do not share
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (!(other instanceof ImmutableListImpl<?> that)) {
+            return InternalUtil.equals(this, other);
+        }
+        if (that.size != size || (hash != 0 && that.hash != 0 && hash != that.hash)) {
+            return false;
+        }
+        Iterator<?> mine = null;
+        Iterator<?> theirs = null;
+        for (int position = 0, idx = 0, thatIdx = 0; position < size; ) {
+            while (ends[idx] <= position) {
+                idx++;
+            }
+            while (that.ends[thatIdx] <= position) {
+                thatIdx++;
+            }
+            var end = ends[idx];
+            if (end == that.ends[thatIdx] && array[idx] == that.array[thatIdx]
+                    && (idx == 0 ? 0 : ends[idx - 1]) == position && (thatIdx == 0 ? 0 : that.ends[thatIdx - 1]) == position) {
+                position = end;
+                mine = null;
+                theirs = null;
+                continue;
+            }
+            if (mine == null) {
+                mine = iterator(position, size);
+                theirs = that.iterator(position, size);
+            }
+            for (var to = Math.min(end, that.ends[thatIdx]); position < to; position++) {
+                if (!Objects.equals(mine.next(), theirs.next())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // nested lists of this kind contribute their own cached hash instead of being walked again
+    @Override
+    public int hashCode() {
+        var hash = this.hash;
+        if (hash == 0) {
+            hash = 1;
+            for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+                var chunk = array[idx];
+                var count = ends[idx] - start;
+                if (count == 1) {
+                    hash = 31 * hash + Objects.hashCode(chunk);
+                } else if (chunk instanceof Object[] items) {
+                    for (var item = 0; item < count; item++) {
+                        hash = 31 * hash + Objects.hashCode(items[item]);
+                    }
+                } else if (chunk instanceof ImmutableListImpl<?> nested && nested.size == count) {
+                    var shift = InternalUtil.pow31(count);
+                    hash = hash * shift + nested.hashCode() - shift;
+                } else {
+                    var iterator = ((Iterable<?>) chunk).iterator();
+                    for (var item = 0; item < count; item++) {
+                        hash = 31 * hash + Objects.hashCode(iterator.next());
+                    }
+                }
+            }
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    ListStats stats() {
+        int elementChunks = 0, arrayChunks = 0, listChunks = 0, iterableChunks = 0;
+        // array, ends, index: references; limit, size, depth, capacity, hash: ints
+        var shallow = ListStats.objectBytes(3 * ListStats.REFERENCE_BYTES + 5 * Integer.BYTES)
+                + ListStats.arrayBytes(array.length, ListStats.REFERENCE_BYTES)
+                + ListStats.arrayBytes(ends.length, Integer.BYTES);
+        var retained = shallow;
+        var viewed = new TreeMap<String, Integer>();
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var chunk = array[idx];
+            if (ends[idx] - start == 1) {
+                elementChunks++;
+            } else if (chunk instanceof Object[] items) {
+                arrayChunks++;
+                retained += ListStats.arrayBytes(items.length, ListStats.REFERENCE_BYTES);
+            } else if (chunk instanceof ImmutableList<?> nested) {
+                listChunks++;
+                retained += ImmutableLists.stats(nested).retainedBytes();
+            } else {
+                iterableChunks++;
+                viewed.merge(chunk.getClass().getName(), 1, Integer::sum);
+            }
+        }
+        return new ListStats(size, limit, elementChunks, arrayChunks, listChunks, iterableChunks, Map.copyOf(viewed),
+                array.length, limit, shallow, retained, depth);
+    }
+
+    // whether every chunk can be entered by index, so get stays logarithmic
+    boolean isRandomAccess() {
+        for (int idx = 0, start = 0; idx < limit; start = ends[idx++]) {
+            var chunk = array[idx];
+            if (ends[idx] - start != 1 && !(chunk instanceof Object[]) && !(chunk instanceof RandomAccess)
+                    && !(chunk instanceof ImmutableList<?> nested && ListView.isRandomAccess(nested))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ImmutableListImpl<T> addAny(Object item, int count, int itemDepth) {
+        if (count == 0) {
+            return this;
+        }
+        var limit = this.limit;
+        // the first add on this version owns the next slot of the shared array,
+        // every other add (or a full array) falls back to a growing copy
+        if (limit < array.length) {
+            if (CAPACITY.compareAndSet(this, limit, limit + 1)) {
+                array[limit] = item;
+                ends[limit] = size + count;
+                return new ImmutableListImpl<>(array, ends, limit + 1, Math.max(depth, itemDepth), index);
+            }
+            ListEvents.slotTaken(limit, size);
+        }
+        return fromAny(item, count, itemDepth);
+    }
+
+    static final class BuilderImpl<T> implements Builder<T> {
+
+        private static final int MIN_BUFFER = 16;
+
+        // sealed chunks laid out exactly like ImmutableListImpl's, followed by the buffer being filled
+        private Object[] chunks;
+        private int[] ends;
+        private int limit;
+        private int depth;
+        private Object[] buffer;
+        private int bufferSize;
+        private int size;
+        private int expectedSize;
+        // whether the first buffer reserves all of expectedSize, otherwise buffers grow geometrically up to it
+        private final boolean reserve;
+        // set once build() has handed chunks and ends to a list, which may claim their free slots
+        private boolean shared;
+        private ImmutableListImpl<T> built;
+
+        BuilderImpl(int expectedSize, boolean reserve) {
+            this.chunks = new Object[MIN_GROWTH];
+            this.ends = new int[MIN_GROWTH];
+            this.expectedSize = expectedSize;
+            this.reserve = reserve;
+        }
+
+        // a parallel collect creates one per fork-join leaf, each holding only its share of expectedSize
+        static <T> BuilderImpl<T> accumulator(int expectedSize) {
+            return new BuilderImpl<>(expectedSize, false);
+        }
+
+        @Override
+        public BuilderImpl<T> add(T item) {
+            if (buffer == null || bufferSize == buffer.length) {
+                sealBuffer();
+                var remaining = expectedSize - size;
+                var grown = Math.max(size, MIN_BUFFER);
+                buffer = new Object[reserve ? Math.max(remaining, grown) : remaining > 0 ? Math.min(remaining, grown) : grown];
+            }
+            buffer[bufferSize++] = item;
+            size++;
+            return this;
+        }
+
+        @Override
+        public BuilderImpl<T> addAll(Iterable<? extends T> items) {
+            if (items instanceof Collection<?> collection) {
+                var count = collection.size();
+                if (buffer != null && count <= buffer.length - bufferSize) {
+                    for (var item : collection) {
+                        buffer[bufferSize++] = item;
+                    }
+                    size += count;
+                } else {
+                    sealBuffer();
+                    var array = collection.toArray();
+                    appendChunk(InternalUtil.chunkOf(array), array.length);
+                    size += array.length;
+                }
+            } else {
+                for (var item : items) {
+                    add(item);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public BuilderImpl<T> addAll(ImmutableList<? extends T> items) {
+            if (items instanceof ImmutableListImpl<?> impl) {
+                appendChunks(impl.array, impl.ends, impl.limit, impl.size, impl.depth);
+            } else {
+                items.forEach(this::add);
+            }
+            return this;
+        }
+
+        // collector combiner, other is discarded afterwards so its sealed chunks can be shared
+        BuilderImpl<T> combine(BuilderImpl<T> other) {
+            other.sealBuffer();
+            appendChunks(other.chunks, other.ends, other.limit, other.size, other.depth);
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public ImmutableList<T> build() {
+            sealBuffer();
+            if (size <= SmallList.MAX_SIZE) {
+                // copied out, the chunks stay the builder's own
+                return orSmall(new ImmutableListImpl<>(chunks, ends, limit, depth));
+            }
+            // two lists over the same arrays and limit would both claim the next slot
+            if (!shared) {
+                built = new ImmutableListImpl<>(chunks, ends, limit, depth);
+                shared = true;
+            }
+            return built;
+        }
+
+        private void sealBuffer() {
+            if (bufferSize > 0) {
+                appendChunk(bufferSize == 1 ? buffer[0] : buffer, bufferSize);
+                if (reserve) {
+                    // the reservation was taken, later buffers grow as without a hint
+                    expectedSize = 0;
+                }
+            }
+            buffer = null;
+            bufferSize = 0;
+        }
+
+        private void appendChunks(Object[] otherChunks, int[] otherEnds, int otherLimit, int otherSize, int otherDepth) {
+            if (otherSize == 0) {
+                return;
+            }
+            sealBuffer();
+            ensureChunkCapacity(otherLimit);
+            System.arraycopy(otherChunks, 0, chunks, limit, otherLimit);
+            for (var idx = 0; idx < otherLimit; idx++) {
+                ends[limit + idx] = size + otherEnds[idx];
+            }
+            limit += otherLimit;
+            size += otherSize;
+            depth = Math.max(depth, otherDepth);
+        }
+
+        // count is not yet included in size
+        private void appendChunk(Object chunk, int count) {
+            if (count == 0) {
+                return;
+            }
+            ensureChunkCapacity(1);
+            chunks[limit] = chunk;
+            ends[limit] = (limit == 0 ? 0 : ends[limit - 1]) + count;
+            limit++;
+        }
+
+        private void ensureChunkCapacity(int extra) {
+            if (shared || limit + extra > chunks.length) {
+                var newCapacity = Math.max(limit + extra, limit + Math.max(limit >> 1, MIN_GROWTH));
+                chunks = Arrays.copyOf(chunks, newCapacity);
+                ends = Arrays.copyOf(ends, newCapacity);
+                shared = false;
+            }
+        }
+    }
+
+    // starts out on the source's chunk table and copies it on the first structural edit; chunks the view
+    // copied or created itself are written in place, the source's chunks never are
+    static final class TransientImpl<T> implements MutableView<T> {
+
+        private final ImmutableListImpl<T> source;
+        private Object[] chunks;
+        private int[] ends;
+        // owned[i] is set when chunks[i] is an Object[] created by this view, null until the table is copied
+        private boolean[] owned;
+        private int limit;
+        private Object[] buffer;
+        private int bufferSize;
+        private Thread owner;
+
+        TransientImpl(ImmutableListImpl<T> source) {
+            this.source = source;
+            this.chunks = source.array;
+            this.ends = source.ends;
+            this.limit = source.limit;
+            this.owner = Thread.currentThread();
+        }
+
+        @Override
+        public TransientImpl<T> add(T item) {
+            checkOwner();
+            if (buffer == null || bufferSize == buffer.length) {
+                sealBuffer();
+                // sized by what this view added so far, the source may be far larger than the batch
+                buffer = new Object[Math.max(sealedSize() - source.size, BuilderImpl.MIN_BUFFER)];
+            }
+            buffer[bufferSize++] = item;
+            return this;
+        }
+
+        @Override
+        public TransientImpl<T> addAll(Iterable<? extends T> items) {
+            checkOwner();
+            if (items instanceof Collection<?> collection && (buffer == null || collection.size() > buffer.length - bufferSize)) {
+                sealBuffer();
+                var array = collection.toArray();
+                appendChunk(InternalUtil.chunkOf(array), array.length);
+            } else {
+                for (var item : items) {
+                    add(item);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public TransientImpl<T> set(int index, T item) {
+            checkOwner();
+            Objects.checkIndex(index, size());
+            var sealed = sealedSize();
+            if (index >= sealed) {
+                buffer[index - sealed] = item;
+                return this;
+            }
+            ownTable();
+            var idx = chunkIndexOf(index);
+            var start = idx == 0 ? 0 : ends[idx - 1];
+            var count = ends[idx] - start;
+            if (count == 1) {
+                chunks[idx] = item;
+            } else {
+                ownChunk(idx, count);
+                ((Object[]) chunks[idx])[index - start] = item;
+            }
+            return this;
+        }
+
+        @Override
+        public TransientImpl<T> removeLast() {
+            checkOwner();
+            if (bufferSize > 0) {
+                buffer[--bufferSize] = null;
+                return this;
+            }
+            if (limit == 0) {
+                throw new NoSuchElementException();
+            }
+            ownTable();
+            var idx = limit - 1;
+            var count = ends[idx] - (idx == 0 ? 0 : ends[idx - 1]);
+            if (count == 1) {
+                chunks[idx] = null;
+                limit--;
+            } else if (count == 2) {
+                chunks[idx] = InternalUtil.elementAt(chunks[idx], 0);
+                owned[idx] = false;
+                ends[idx]--;
+            } else {
+                // only Object[] chunks may hold more slots than they count
+                if (!(chunks[idx] instanceof Object[])) {
+                    ownChunk(idx, count);
+                }
+                if (owned[idx]) {
+                    ((Object[]) chunks[idx])[count - 1] = null;
+                }
+                ends[idx]--;
+            }
+            return this;
+        }
+
+        @Override
+        public T get(int index) {
+            checkOwner();
+            Objects.checkIndex(index, size());
+            var sealed = sealedSize();
+            Object item;
+            if (index >= sealed) {
+                item = buffer[index - sealed];
+            } else {
+                var idx = chunkIndexOf(index);
+                var start = idx == 0 ? 0 : ends[idx - 1];
+                item = ends[idx] - start == 1 ? chunks[idx] : InternalUtil.elementAt(chunks[idx], index - start);
+            }
+            @SuppressWarnings("unchecked")
+            var itCasted = (T) item;
+            return itCasted;
+        }
+
+        @Override
+        public int size() {
+            checkOwner();
+            return sealedSize() + bufferSize;
+        }
+
+        ImmutableList<T> publish() {
+            sealBuffer();
+            return owned == null ? source : orSmall(new ImmutableListImpl<>(chunks, ends, limit, source.depth));
+        }
+
+        private void checkOwner() {
+            if (owner != Thread.currentThread()) {
+                throw new IllegalStateException(owner == null
+                        ? "mutable view used after withMutations returned"
+                        : "mutable view used outside of the thread running withMutations");
+            }
+        }
+
+        private int sealedSize() {
+            return limit == 0 ? 0 : ends[limit - 1];
+        }
+
+        private int chunkIndexOf(int index) {
+            var found = Arrays.binarySearch(ends, 0, limit, index);
+            return found >= 0 ? found + 1 : -(found + 1);
+        }
+
+        private void sealBuffer() {
+            if (bufferSize > 0) {
+                appendChunk(bufferSize == 1 ? buffer[0] : buffer, bufferSize);
+            }
+            buffer = null;
+            bufferSize = 0;
+        }
+
+        // chunk is either a single element or an Object[] nobody else holds
+        private void appendChunk(Object chunk, int count) {
+            if (count == 0) {
+                return;
+            }
+            ownTable();
+            if (limit == chunks.length) {
+                var newCapacity = limit + Math.max(limit >> 1, MIN_GROWTH);
+                chunks = Arrays.copyOf(chunks, newCapacity);
+                ends = Arrays.copyOf(ends, newCapacity);
+                owned = Arrays.copyOf(owned, newCapacity);
+            }
+            chunks[limit] = chunk;
+            ends[limit] = sealedSize() + count;
+            owned[limit] = count > 1;
+            limit++;
+        }
+
+        private void ownTable() {
+            if (owned == null) {
+                var capacity = limit + Math.max(limit >> 1, MIN_GROWTH);
+                chunks = Arrays.copyOf(chunks, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                // slots past limit may already be claimed by other versions of the source
+                Arrays.fill(chunks, limit, capacity, null);
+                owned = new boolean[capacity];
+            }
+        }
+
+        private void ownChunk(int idx, int count) {
+            if (!owned[idx]) {
+                var copy = new Object[count];
+                InternalUtil.copyElements(chunks[idx], count, copy, 0);
+                chunks[idx] = copy;
+                owned[idx] = true;
+            }
+        }
+    }
+
+    // element to the position of its first occurrence, open addressing with linear probing. One index serves every
+    // version on the array it was built for, since they agree on the element at each position they hold, and a version
+    // ignores entries at or past its size. Only extending takes the lock: entries are never moved or removed, a grown-out
+    // table is never written again, and a reader only trusts entries published before the table covered its size.
+    // A list copied into a new array gets a layer on top of this index instead of a copy of it
+    static final class ElementIndex {
+
+        private static final int INITIAL_CAPACITY = 16;
+        // layers stacked deeper than this are flattened into one table on the next copy
+        private static final int MAX_LAYERS = 4;
+        // stands in for null elements as a key
+        private static final Object NULL_KEY = new Object();
+
+        // answers for positions below baseSize, this layer's own table starts at baseSize
+        private final ElementIndex base;
+        private final int baseSize;
+        private final int layers;
+        private volatile Table table;
+
+        ElementIndex() {
+            this(null, 0, new Table(new Object[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0, 0));
+        }
+
+        private ElementIndex(ElementIndex base, int baseSize, Table table) {
+            this.base = base;
+            this.baseSize = baseSize;
+            this.layers = base == null ? 1 : base.layers + 1;
+            this.table = table;
+        }
+
+        int indexOf(ImmutableListImpl<?> list, Object item) {
+            if (table.covered < list.size) {
+                extend(list);
+            }
+            return find(item == null ? NULL_KEY : item, list.size);
+        }
+
+        // index for a copy of the first size elements of a list using this one
+        ElementIndex forkedAt(int size) {
+            var table = this.table;
+            var bound = Math.min(size, table.covered);
+            if (layers < MAX_LAYERS) {
+                return new ElementIndex(this, bound, new Table(new Object[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0, bound));
+            }
+            var entries = 0;
+            for (var layer = this; layer != null; layer = layer.base) {
+                entries += layer.table.count;
+            }
+            var capacity = INITIAL_CAPACITY;
+            while (capacity < entries * 2 + 2) {
+                capacity *= 2;
+            }
+            var keys = new Object[capacity];
+            var positions = new int[capacity];
+            return new ElementIndex(null, 0, new Table(keys, positions, copyEntries(keys, positions, bound), bound));
+        }
+
+        // first position of key below bound, -1 if none
+        private int find(Object key, int bound) {
+            if (base != null) {
+                var found = base.find(key, Math.min(bound, baseSize));
+                if (found >= 0) {
+                    return found;
+                }
+            }
+            if (bound <= baseSize) {
+                return -1;
+            }
+            var table = this.table;
+            var keys = table.keys;
+            var mask = keys.length - 1;
+            for (var slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+                var found = keys[slot];
+                if (found == null) {
+                    return -1;
+                } else if (key.equals(found)) {
+                    // a slot still being filled reads position 0, so -1 here
+                    var position = table.positions[slot] - 1;
+                    return position < bound ? position : -1;
+                }
+            }
+        }
+
+        // inserts the entries below bound of every layer, lowest positions first, returning how many were new
+        private int copyEntries(Object[] keys, int[] positions, int bound) {
+            var count = base == null ? 0 : base.copyEntries(keys, positions, Math.min(bound, baseSize));
+            var table = this.table;
+            for (var slot = 0; slot < table.keys.length; slot++) {
+                var key = table.keys[slot];
+                var position = table.positions[slot] - 1;
+                if (key != null && position >= baseSize && position < bound && insert(keys, positions, key, position + 1)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private synchronized void extend(ImmutableListImpl<?> list) {
+            var table = this.table;
+            if (table.covered >= list.size) {
+                return;
+            }
+            var keys = table.keys;
+            var positions = table.positions;
+            var count = table.count;
+            var items = list.iterator(table.covered, list.size);
+            for (var position = table.covered; position < list.size; position++) {
+                var item = items.next();
+                if ((count + 1) * 2 > keys.length) {
+                    var newKeys = new Object[keys.length * 2];
+                    var newPositions = new int[keys.length * 2];
+                    for (var slot = 0; slot < keys.length; slot++) {
+                        if (keys[slot] != null) {
+                            insert(newKeys, newPositions, keys[slot], positions[slot]);
+                        }
+                    }
+                    keys = newKeys;
+                    positions = newPositions;
+                }
+                if (insert(keys, positions, item == null ? NULL_KEY : item, position + 1)) {
+                    count++;
+                }
+            }
+            this.table = new Table(keys, positions, count, list.size);
+        }
+
+        // stored position is position + 1, written before the key; an existing key keeps its earlier position
+        private static boolean insert(Object[] keys, int[] positions, Object key, int storedPosition) {
+            var mask = keys.length - 1;
+            for (var slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+                var found = keys[slot];
+                if (found == null) {
+                    positions[slot] = storedPosition;
+                    keys[slot] = key;
+                    return true;
+                } else if (key.equals(found)) {
+                    return false;
+                }
+            }
+        }
+
+        private static int slotOf(Object key, int mask) {
+            var hash = key.hashCode();
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private static final class Table {
+
+            final Object[] keys;
+            final int[] positions;
+            final int count;
+            // elements below this position of the lists using the index are in the table or the layers below
+            final int covered;
+
+            Table(Object[] keys, int[] positions, int count, int covered) {
+                this.keys = keys;
+                this.positions = positions;
+                this.count = count;
+                this.covered = covered;
+            }
+        }
+    }
+
+    private static final class ChunkIterator<T> implements Iterator<T> {
+
+        private final ImmutableListImpl<T> list;
+        private int index;
+        private final int fence;
+        // the chunk holding index: entered by index when indexed is set, through cursor when that is set, a single element otherwise
+        private int chunk;
+        private int chunkStart;
+        private int chunkEnd;
+        private Object indexed;
+        private Iterator<?> cursor;
+
+        ChunkIterator(ImmutableListImpl<T> list, int from, int to) {
+            this.list = list;
+            this.index = from;
+            this.fence = to;
+            if (from < to) {
+                enter(list.chunkIndexOf(from));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < fence;
+        }
+
+        @Override
+        public T next() {
+            if (index >= fence) {
+                throw new NoSuchElementException();
+            }
+            if (index == chunkEnd) {
+                enter(chunk + 1);
+            }
+            Object element;
+            if (indexed instanceof Object[] items) {
+                element = items[index - chunkStart];
+            } else if (indexed != null) {
+                element = InternalUtil.elementAt(indexed, index - chunkStart);
+            } else if (cursor != null) {
+                element = cursor.next();
+            } else {
+                element = list.array[chunk];
+            }
+            index++;
+            @SuppressWarnings("unchecked")
+            var itCasted = (T) element;
+            return itCasted;
+        }
+
+        private void enter(int chunk) {
+            var ends = list.ends;
+            this.chunk = chunk;
+            chunkStart = chunk == 0 ? 0 : ends[chunk - 1];
+            chunkEnd = ends[chunk];
+            indexed = null;
+            cursor = null;
+            var item = list.array[chunk];
+            if (chunkEnd - chunkStart == 1) {
+                return;
+            }
+            var offset = index - chunkStart;
+            if (item instanceof ImmutableListImpl<?> nested) {
+                cursor = nested.iterator(offset, Math.min(fence, chunkEnd) - chunkStart);
+            } else if (item instanceof Object[] || item instanceof ImmutableList<?> || item instanceof RandomAccess) {
+                indexed = item;
+            } else {
+                cursor = ((Iterable<?>) item).iterator();
+                for (var skip = 0; skip < offset; skip++) {
+                    cursor.next();
+                }
+            }
+        }
+    }
+
+    private static final class ChunkSpliterator<T> implements Spliterator<T> {
+
+        private static final int CHARACTERISTICS = ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+
+        private final ImmutableListImpl<T> list;
+        private int index;
+        private final int fence;
+        // tryAdvance state, chunk is -1 until the first element is read
+        private int chunk = -1;
+        private Iterator<?> cursor;
+
+        ChunkSpliterator(ImmutableListImpl<T> list, int index, int fence) {
+            this.list = list;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= fence) {
+                return false;
+            }
+            var ends = list.ends;
+            if (chunk < 0) {
+                chunk = list.chunkIndexOf(index);
+            }
+            while (ends[chunk] <= index) {
+                chunk++;
+                cursor = null;
+            }
+            var start = chunk == 0 ? 0 : ends[chunk - 1];
+            var item = list.array[chunk];
+            Object element;
+            if (ends[chunk] - start == 1) {
+                element = item;
+            } else if (item instanceof Object[] || item instanceof ImmutableList<?> || item instanceof RandomAccess) {
+                element = InternalUtil.elementAt(item, index - start);
+            } else {
+                if (cursor == null) {
+                    cursor = ((Iterable<?>) item).iterator();
+                    for (var skip = start; skip < index; skip++) {
+                        cursor.next();
+                    }
+                }
+                element = cursor.next();
+            }
+            index++;
+            @SuppressWarnings("unchecked")
+            var itCasted = (T) element;
+            action.accept(itCasted);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            var from = index;
+            index = fence;
+            cursor = null;
+            list.forEachInRange(from, fence, action);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            var remaining = fence - index;
+            if (remaining < 2) {
+                return null;
+            }
+            var mid = index + (remaining >>> 1);
+            var ends = list.ends;
+            var midChunk = list.chunkIndexOf(mid);
+            var chunkStart = midChunk == 0 ? 0 : ends[midChunk - 1];
+            var chunkEnd = ends[midChunk];
+            // split at the chunk boundary closest to the middle, or inside the middle chunk
+            // when no boundary gives a reasonably balanced split and the chunk can be entered by index
+            var split = -1;
+            if (chunkStart > index && (chunkEnd >= fence || mid - chunkStart <= chunkEnd - mid)) {
+                split = chunkStart;
+            } else if (chunkEnd < fence) {
+                split = chunkEnd;
+            }
+            var quarter = remaining >>> 2;
+            if (split < 0 || split - index < quarter || fence - split < quarter) {
+                var item = list.array[midChunk];
+                if (chunkEnd - chunkStart != 1
+                        && (item instanceof Object[] || item instanceof ImmutableList<?> || item instanceof RandomAccess)) {
+                    split = mid;
+                } else if (split < 0) {
+                    return null;
+                }
+            }
+            var prefix = new ChunkSpliterator<>(list, index, split);
+            index = split;
+            chunk = -1;
+            cursor = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.varlanv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// persistent file format, reloaded by mapping the file instead of deserializing it:
+//   header   - HEADER_BYTES, see the *_AT offsets below
+//   chunks   - chunkCount longs, the file position of every chunk
+//   payload  - chunks aligned to CHUNK_ALIGNMENT, each mapped as one segment of an OffHeapImmutableList
+// fixed-width chunks hold chunkLength encoded elements back to back,
+// variable-width chunks start with count + 1 int offsets, relative to the chunk, of where every element starts and the last ends
+// stats breaks the structure of one list down into a ListStats, sample and registerStatsMBean feed and expose
+// the shared ListStatsMXBean totals
+public final class ImmutableLists {
+
+    static final int MAGIC = 0x494D4C53;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int CHUNK_ALIGNMENT = Long.BYTES;
+    static final int VARIABLE_CHUNK_LENGTH = 1 << 16;
+
+    static final int LAYOUT_FIXED = 0;
+    static final int LAYOUT_VARIABLE = 1;
+
+    static final int TYPE_CUSTOM = 0;
+    static final int TYPE_INT = 1;
+    static final int TYPE_LONG = 2;
+    static final int TYPE_DOUBLE = 3;
+
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int LAYOUT_AT = 8;
+    private static final int TYPE_AT = 12;
+    private static final int BYTE_SIZE_AT = 16;
+    private static final int SIZE_AT = 20;
+    private static final int CHUNK_LENGTH_AT = 24;
+    private static final int CHUNK_COUNT_AT = 28;
+
+    private ImmutableLists() {
+    }
+
+    public static <T> void writeTo(ImmutableList<? extends T> list, OffHeapImmutableList.Codec<T> codec, Path path) throws IOException {
+        var byteSize = codec.byteSize();
+        if (byteSize <= 0) {
+            throw new IllegalArgumentException("codec byteSize must be positive");
+        }
+        writeFixed(path, typeOf(codec), byteSize, list.size(), sink -> list.forEach(item -> {
+            var buffer = sink.next();
+            var offset = buffer.position();
+            codec.write(buffer, offset, item);
+            buffer.position(offset + byteSize);
+        }));
+    }
+
+    public static void writeTo(ImmutableIntList list, Path path) throws IOException {
+        writeFixed(path, TYPE_INT, Integer.BYTES, list.size(), sink -> list.forEach((int item) -> sink.next().putInt(item)));
+    }
+
+    public static void writeTo(ImmutableLongList list, Path path) throws IOException {
+        writeFixed(path, TYPE_LONG, Long.BYTES, list.size(), sink -> list.forEach((long item) -> sink.next().putLong(item)));
+    }
+
+    public static void writeTo(ImmutableDoubleList list, Path path) throws IOException {
+        writeFixed(path, TYPE_DOUBLE, Double.BYTES, list.size(), sink -> list.forEach((double item) -> sink.next().putDouble(item)));
+    }
+
+    public static <T> void writeTo(ImmutableList<? extends T> list, VariableCodec<T> codec, Path path) throws IOException {
+        var size = list.size();
+        var chunkCount = chunkCount(size, VARIABLE_CHUNK_LENGTH);
+        var chunkBytes = new long[chunkCount];
+        list.forEachIndexed((item, idx) -> chunkBytes[idx / VARIABLE_CHUNK_LENGTH] += codec.byteSize(item));
+        for (var idx = 0; idx < chunkCount; idx++) {
+            chunkBytes[idx] += (long) (Math.min(size - idx * VARIABLE_CHUNK_LENGTH, VARIABLE_CHUNK_LENGTH) + 1) * Integer.BYTES;
+            if (chunkBytes[idx] > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("chunk " + idx + " does not fit in " + Integer.MAX_VALUE + " bytes");
+            }
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var positions = writeHeader(channel, LAYOUT_VARIABLE, TYPE_CUSTOM, 0, size, VARIABLE_CHUNK_LENGTH, chunkBytes);
+            var chunk = new MappedByteBuffer[1];
+            list.forEachIndexed((item, idx) -> {
+                var local = idx % VARIABLE_CHUNK_LENGTH;
+                if (local == 0) {
+                    try {
+                        chunk[0] = map(channel, FileChannel.MapMode.READ_WRITE, positions[idx / VARIABLE_CHUNK_LENGTH],
+                                chunkBytes[idx / VARIABLE_CHUNK_LENGTH]);
+                    } catch (IOException e) {
+                        throw new UncheckedMappingException(e);
+                    }
+                    chunk[0].putInt(0, (Math.min(size - idx, VARIABLE_CHUNK_LENGTH) + 1) * Integer.BYTES);
+                }
+                var start = chunk[0].getInt(local * Integer.BYTES);
+                chunk[0].putInt((local + 1) * Integer.BYTES, start + codec.write(chunk[0], start, item));
+            });
+        } catch (UncheckedMappingException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static <T> OffHeapImmutableList<T> map(Path path, OffHeapImmutableList.Codec<T> codec) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var header = readHeader(channel, path);
+            var byteSize = header.getInt(BYTE_SIZE_AT);
+            var type = header.getInt(TYPE_AT);
+            if (header.getInt(LAYOUT_AT) != LAYOUT_FIXED || byteSize != codec.byteSize()
+                    || (type != TYPE_CUSTOM && type != typeOf(codec))) {
+                throw new IOException(path + " holds elements of type " + type + " and width " + byteSize
+                        + ", not readable with the given codec");
+            }
+            var size = header.getInt(SIZE_AT);
+            var chunkLength = header.getInt(CHUNK_LENGTH_AT);
+            var segments = mapChunks(channel, header, size, chunkLength, count -> (long) count * byteSize);
+            return new OffHeapImmutableList<>(codec, segments, size, chunkLength);
+        }
+    }
+
+    public static <T> OffHeapImmutableList<T> map(Path path, VariableCodec<T> codec) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var header = readHeader(channel, path);
+            if (header.getInt(LAYOUT_AT) != LAYOUT_VARIABLE) {
+                throw new IOException(path + " holds fixed-width elements");
+            }
+            var size = header.getInt(SIZE_AT);
+            var chunkLength = header.getInt(CHUNK_LENGTH_AT);
+            var segments = mapChunks(channel, header, size, chunkLength, null);
+            return new OffHeapImmutableList<>(variableWidth(codec), segments, size, chunkLength);
+        }
+    }
+
+    public static OffHeapImmutableList<Integer> mapInts(Path path) throws IOException {
+        return map(path, OffHeapImmutableList.Codec.INT);
+    }
+
+    public static OffHeapImmutableList<Long> mapLongs(Path path) throws IOException {
+        return map(path, OffHeapImmutableList.Codec.LONG);
+    }
+
+    public static OffHeapImmutableList<Double> mapDoubles(Path path) throws IOException {
+        return map(path, OffHeapImmutableList.Codec.DOUBLE);
+    }
+
+    // walks the list's top-level chunks, nested lists are broken down for their retained bytes only
+    public static ListStats stats(ImmutableList<?> list) {
+        if (list instanceof ImmutableListImpl<?> impl) {
+            return impl.stats();
+        } else if (list instanceof SmallList<?>) {
+            // first, second
+            return ListStats.opaque(list.size(), ListStats.objectBytes(2 * ListStats.REFERENCE_BYTES));
+        } else if (list instanceof SliceList<?> slice) {
+            // parent, from, to
+            var shallow = ListStats.objectBytes(ListStats.REFERENCE_BYTES + 2 * Integer.BYTES);
+            var parent = stats(slice.parent());
+            return new ListStats(list.size(), parent.chunkCount(), parent.elementChunks(), parent.arrayChunks(),
+                    parent.listChunks(), parent.iterableChunks(), parent.viewedIterables(), parent.arrayLength(),
+                    parent.usedSlots(), shallow, shallow + parent.retainedBytes(), parent.depth());
+        }
+        return ListStats.opaque(list.size(), 0);
+    }
+
+    // feeds the shared registry behind the ListStatsMXBean, cheap enough to call on every list of interest
+    public static void sample(ImmutableList<?> list) {
+        ListStatsRegistry.SHARED.offer(list);
+    }
+
+    public static ListStatsMXBean statsRegistry() {
+        return ListStatsRegistry.SHARED;
+    }
+
+    // registers the shared registry with the platform MBeanServer, once
+    public static ObjectName registerStatsMBean() throws JMException {
+        return ListStatsRegistry.SHARED.register();
+    }
+
+    static <T> OffHeapImmutableList.SegmentReader<T> variableWidth(VariableCodec<T> codec) {
+        return (segment, idx) -> {
+            var start = segment.getInt(idx * Integer.BYTES);
+            return codec.read(segment, start, segment.getInt((idx + 1) * Integer.BYTES) - start);
+        };
+    }
+
+    private static void writeFixed(Path path, int type, int byteSize, int size, Consumer<FixedSink> items) throws IOException {
+        var chunkLength = OffHeapImmutableList.MAX_SEGMENT_BYTES / byteSize;
+        var chunkCount = chunkCount(size, chunkLength);
+        var chunkBytes = new long[chunkCount];
+        for (var idx = 0; idx < chunkCount; idx++) {
+            chunkBytes[idx] = (long) Math.min(size - idx * chunkLength, chunkLength) * byteSize;
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var positions = writeHeader(channel, LAYOUT_FIXED, type, byteSize, size, chunkLength, chunkBytes);
+            var sink = new FixedSink(channel, positions, chunkBytes, chunkLength, size);
+            items.accept(sink);
+            sink.finish();
+        } catch (UncheckedMappingException e) {
+            throw e.getCause();
+        }
+    }
+
+    // writes header and chunk table, sizes the file and returns the position of every chunk
+    private static long[] writeHeader(FileChannel channel, int layout, int type, int byteSize, int size, int chunkLength,
+                                      long[] chunkBytes) throws IOException {
+        var chunkCount = chunkBytes.length;
+        var header = ByteBuffer.allocate(HEADER_BYTES + chunkCount * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC_AT, MAGIC)
+                .putInt(VERSION_AT, VERSION)
+                .putInt(LAYOUT_AT, layout)
+                .putInt(TYPE_AT, type)
+                .putInt(BYTE_SIZE_AT, byteSize)
+                .putInt(SIZE_AT, size)
+                .putInt(CHUNK_LENGTH_AT, chunkLength)
+                .putInt(CHUNK_COUNT_AT, chunkCount);
+        var positions = new long[chunkCount];
+        var position = align(header.capacity());
+        for (var idx = 0; idx < chunkCount; idx++) {
+            positions[idx] = position;
+            header.putLong(HEADER_BYTES + idx * Long.BYTES, position);
+            position = align(position + chunkBytes[idx]);
+        }
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        if (position > channel.size()) {
+            channel.write(ByteBuffer.allocate(1), position - 1);
+        }
+        return positions;
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, Path path) throws IOException {
+        var header = readFully(channel, 0, HEADER_BYTES, path);
+        if (header.getInt(MAGIC_AT) != MAGIC) {
+            throw new IOException(path + " is not an immutable list file");
+        }
+        if (header.getInt(VERSION_AT) != VERSION) {
+            throw new IOException(path + " has unsupported version " + header.getInt(VERSION_AT));
+        }
+        var chunkCount = header.getInt(CHUNK_COUNT_AT);
+        if (chunkCount < 0 || HEADER_BYTES + (long) chunkCount * Long.BYTES > channel.size()) {
+            throw new IOException(path + " is truncated");
+        }
+        return readFully(channel, 0, HEADER_BYTES + chunkCount * Long.BYTES, path);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length, Path path) throws IOException {
+        var buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(path + " is truncated");
+            }
+        }
+        return buffer.clear();
+    }
+
+    // a null chunkBytes means the chunk extends up to the next one, or to the end of the file
+    private static ByteBuffer[] mapChunks(FileChannel channel, ByteBuffer header, int size, int chunkLength,
+                                          ChunkBytes chunkBytes) throws IOException {
+        var chunkCount = header.getInt(CHUNK_COUNT_AT);
+        if (chunkCount != chunkCount(size, chunkLength)) {
+            throw new IOException("chunk table does not match " + size + " elements");
+        }
+        var fileSize = channel.size();
+        var segments = new ByteBuffer[chunkCount];
+        for (var idx = 0; idx < chunkCount; idx++) {
+            var position = header.getLong(HEADER_BYTES + idx * Long.BYTES);
+            var length = chunkBytes == null
+                    ? (idx + 1 < chunkCount ? header.getLong(HEADER_BYTES + (idx + 1) * Long.BYTES) : fileSize) - position
+                    : chunkBytes.of(Math.min(size - idx * chunkLength, chunkLength));
+            segments[idx] = map(channel, FileChannel.MapMode.READ_ONLY, position, length);
+        }
+        return segments;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long length) throws IOException {
+        var buffer = channel.map(mode, position, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static int chunkCount(int size, int chunkLength) {
+        return (int) (((long) size + chunkLength - 1) / chunkLength);
+    }
+
+    private static long align(long position) {
+        return (position + CHUNK_ALIGNMENT - 1) & -CHUNK_ALIGNMENT;
+    }
+
+    private static int typeOf(OffHeapImmutableList.Codec<?> codec) {
+        if (codec == OffHeapImmutableList.Codec.INT) {
+            return TYPE_INT;
+        } else if (codec == OffHeapImmutableList.Codec.LONG) {
+            return TYPE_LONG;
+        } else if (codec == OffHeapImmutableList.Codec.DOUBLE) {
+            return TYPE_DOUBLE;
+        }
+        return TYPE_CUSTOM;
+    }
+
+    // variable-width encoding of one element, written at an absolute offset without moving the buffer position
+    public interface VariableCodec<T> {
+
+        VariableCodec<String> UTF8 = new VariableCodec<>() {
+
+            // counted without encoding, an unpaired surrogate is encoded as '?'
+            @Override
+            public int byteSize(String value) {
+                var length = value.length();
+                var bytes = length;
+                for (var idx = 0; idx < length; idx++) {
+                    var ch = value.charAt(idx);
+                    if (ch >= 0x800) {
+                        if (!Character.isSurrogate(ch)) {
+                            bytes += 2;
+                        } else if (Character.isHighSurrogate(ch) && idx + 1 < length
+                                && Character.isLowSurrogate(value.charAt(idx + 1))) {
+                            bytes += 2;
+                            idx++;
+                        }
+                    } else if (ch >= 0x80) {
+                        bytes++;
+                    }
+                }
+                return bytes;
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset, int length) {
+                var bytes = new byte[length];
+                buffer.get(offset, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public int write(ByteBuffer buffer, int offset, String value) {
+                var bytes = value.getBytes(StandardCharsets.UTF_8);
+                buffer.put(offset, bytes);
+                return bytes.length;
+            }
+        };
+
+        int byteSize(T value);
+
+        T read(ByteBuffer buffer, int offset, int length);
+
+        // returns the number of bytes written, byteSize(value)
+        int write(ByteBuffer buffer, int offset, T value);
+    }
+
+    private interface ChunkBytes {
+
+        long of(int count);
+    }
+
+    // hands out the mapped chunk the next fixed-width element goes to, positioned at it
+    private static final class FixedSink {
+
+        private final FileChannel channel;
+        private final long[] positions;
+        private final long[] chunkBytes;
+        private final int chunkLength;
+        private final int size;
+        private MappedByteBuffer chunk;
+        private int written;
+
+        FixedSink(FileChannel channel, long[] positions, long[] chunkBytes, int chunkLength, int size) {
+            this.channel = channel;
+            this.positions = positions;
+            this.chunkBytes = chunkBytes;
+            this.chunkLength = chunkLength;
+            this.size = size;
+        }
+
+        MappedByteBuffer next() {
+            if (written == size) {
+                throw new IllegalStateException("more elements than expected");
+            }
+            if (written % chunkLength == 0) {
+                try {
+                    chunk = map(channel, FileChannel.MapMode.READ_WRITE, positions[written / chunkLength], chunkBytes[written / chunkLength]);
+                } catch (IOException e) {
+                    throw new UncheckedMappingException(e);
+                }
+            }
+            written++;
+            return chunk;
+        }
+
+        void finish() {
+            if (written != size) {
+                throw new IllegalStateException("expected " + size + " elements but got " + written);
+            }
+        }
+    }
+
+    // carries an IOException out of a forEach callback
+    private static final class UncheckedMappingException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        UncheckedMappingException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
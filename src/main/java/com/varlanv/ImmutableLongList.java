@@ -0,0 +1,194 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+public interface ImmutableLongList {
+
+    static ImmutableLongList empty() {
+        return new ImmutableLongListImpl(new long[0], 0);
+    }
+
+    static ImmutableLongList of(long item) {
+        return new ImmutableLongListImpl(new long[]{item}, 1);
+    }
+
+    static ImmutableLongList ofAll(long... items) {
+        return new ImmutableLongListImpl(items.clone(), items.length);
+    }
+
+    ImmutableLongList add(long item);
+
+    ImmutableLongList addAll(long... items);
+
+    ImmutableLongList combine(ImmutableLongList other);
+
+    void forEach(LongConsumer action);
+
+    int size();
+
+    long get(int index);
+
+    int indexOf(long item);
+
+    boolean contains(long item);
+
+    long sum();
+
+    OptionalLong min();
+
+    OptionalLong max();
+
+    LongStream stream();
+
+    long[] toArray();
+}
+
+final class ImmutableLongListImpl implements ImmutableLongList {
+
+    private static final int MIN_GROWTH = 8;
+    private static final AtomicIntegerFieldUpdater<ImmutableLongListImpl> CAPACITY =
+            AtomicIntegerFieldUpdater.newUpdater(ImmutableLongListImpl.class, "capacity");
+
+    // values 0..size of array belong to this version, later slots are claimed by at most one derived version
+    private final long[] array;
+    private final int size;
+    private volatile int capacity;
+
+    ImmutableLongListImpl(long[] array, int size) {
+        this.array = array;
+        this.size = size;
+        this.capacity = size;
+    }
+
+    @Override
+    public ImmutableLongListImpl add(long item) {
+        var size = this.size;
+        if (size < array.length && CAPACITY.compareAndSet(this, size, size + 1)) {
+            array[size] = item;
+            return new ImmutableLongListImpl(array, size + 1);
+        }
+        var newArray = grow(1);
+        newArray[size] = item;
+        return new ImmutableLongListImpl(newArray, size + 1);
+    }
+
+    @Override
+    public ImmutableLongListImpl addAll(long... items) {
+        return addAll(items, items.length);
+    }
+
+    @Override
+    public ImmutableLongList combine(ImmutableLongList other) {
+        if (size == 0) {
+            return other;
+        }
+        if (other instanceof ImmutableLongListImpl impl) {
+            return addAll(impl.array, impl.size);
+        }
+        return addAll(other.toArray());
+    }
+
+    private ImmutableLongListImpl addAll(long[] items, int count) {
+        if (count == 0) {
+            return this;
+        }
+        var size = this.size;
+        var newSize = size + count;
+        if (newSize <= array.length && CAPACITY.compareAndSet(this, size, newSize)) {
+            System.arraycopy(items, 0, array, size, count);
+            return new ImmutableLongListImpl(array, newSize);
+        }
+        var newArray = grow(count);
+        System.arraycopy(items, 0, newArray, size, count);
+        return new ImmutableLongListImpl(newArray, newSize);
+    }
+
+    private long[] grow(int count) {
+        var newCapacity = Math.max(size + count, size + Math.max(size >> 1, MIN_GROWTH));
+        var newArray = new long[newCapacity];
+        System.arraycopy(array, 0, newArray, 0, size);
+        return newArray;
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        var array = this.array;
+        for (int idx = 0, size = this.size; idx < size; idx++) {
+            action.accept(array[idx]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long get(int index) {
+        Objects.checkIndex(index, size);
+        return array[index];
+    }
+
+    @Override
+    public int indexOf(long item) {
+        for (var idx = 0; idx < size; idx++) {
+            if (array[idx] == item) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(long item) {
+        return indexOf(item) >= 0;
+    }
+
+    @Override
+    public long sum() {
+        long sum = 0;
+        for (var idx = 0; idx < size; idx++) {
+            sum += array[idx];
+        }
+        return sum;
+    }
+
+    @Override
+    public OptionalLong min() {
+        if (size == 0) {
+            return OptionalLong.empty();
+        }
+        var min = array[0];
+        for (var idx = 1; idx < size; idx++) {
+            min = Math.min(min, array[idx]);
+        }
+        return OptionalLong.of(min);
+    }
+
+    @Override
+    public OptionalLong max() {
+        if (size == 0) {
+            return OptionalLong.empty();
+        }
+        var max = array[0];
+        for (var idx = 1; idx < size; idx++) {
+            max = Math.max(max, array[idx]);
+        }
+        return OptionalLong.of(max);
+    }
+
+    @Override
+    public LongStream stream() {
+        return Arrays.stream(array, 0, size);
+    }
+
+    @Override
+    public long[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+}
@@ -0,0 +1,50 @@
+package com.varlanv;
+
+// persistent list with O(log n) updates anywhere, every version shares all untouched nodes with the one it came from
+public interface ImmutableVector<T> extends ImmutableList<T> {
+
+    static <T> ImmutableVector<T> empty() {
+        return RrbVector.empty();
+    }
+
+    static <T> ImmutableVector<T> of(T item) {
+        return RrbVector.<T>empty().add(item);
+    }
+
+    // items are only read element by element, never handed on, which is what makes the varargs safe
+    @SafeVarargs
+    static <T> ImmutableVector<T> ofAll(T... items) {
+        var array = new Object[items.length];
+        for (var idx = 0; idx < items.length; idx++) {
+            array[idx] = items[idx];
+        }
+        return RrbVector.ofArray(array);
+    }
+
+    static <T> ImmutableVector<T> ofIterable(Iterable<T> items) {
+        return RrbVector.ofArray(InternalUtil.toArray(items));
+    }
+
+    static <T> ImmutableVector<T> copyOf(ImmutableList<T> items) {
+        return RrbVector.copyOf(items);
+    }
+
+    @Override
+    ImmutableVector<T> add(T item);
+
+    @Override
+    ImmutableVector<T> addIterable(Iterable<T> items);
+
+    @Override
+    ImmutableVector<T> combine(ImmutableList<T> other);
+
+    ImmutableVector<T> set(int index, T item);
+
+    ImmutableVector<T> insert(int index, T item);
+
+    ImmutableVector<T> removeAt(int index);
+
+    ImmutableVector<T> slice(int from, int to);
+
+    ImmutableVector<T> concat(ImmutableVector<T> other);
+}
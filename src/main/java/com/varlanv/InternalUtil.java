@@ -0,0 +1,364 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+final class InternalUtil {
+
+    // containsAll scans the list for this many candidates, the rest are looked up in a set of the list's elements
+    static final int CONTAINS_ALL_SCAN_LIMIT = 8;
+
+    static int sizeOfIterable(Iterable<?> iterable) {
+        if (iterable instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        var event = new ListEvents.OpaqueTraversal();
+        event.begin();
+        var counter = 0;
+        for (var ignore : iterable) {
+            counter++;
+        }
+        event.end("size", counter, iterable);
+        return counter;
+    }
+
+    static Object chunkOf(Iterable<?> iterable, int count) {
+        return count == 1 ? iterable.iterator().next() : iterable;
+    }
+
+    static Object chunkOf(Object[] array) {
+        return array.length == 1 ? array[0] : array;
+    }
+
+    // snapshot of the iterable's current elements, exactly as long as their count
+    static Object[] toArray(Iterable<?> iterable) {
+        if (iterable instanceof Collection<?> collection) {
+            return collection.toArray();
+        }
+        if (iterable instanceof ImmutableList<?> list) {
+            return list.toArray();
+        }
+        var array = new Object[16];
+        var size = 0;
+        for (var item : iterable) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size + (size >> 1));
+            }
+            array[size++] = item;
+        }
+        return size == array.length ? array : Arrays.copyOf(array, size);
+    }
+
+    // walks elements [from, to) of a multi-element chunk without allocating, except for
+    // the iterator of opaque Iterable chunks
+    static <T> void forEachInRange(Object chunk, int from, int to, int count, Consumer<? super T> action) {
+        if (chunk instanceof Object[] items) {
+            for (var idx = from; idx < to; idx++) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) items[idx];
+                action.accept(itCasted);
+            }
+        } else if (chunk instanceof ImmutableList<?> nested) {
+            @SuppressWarnings("unchecked")
+            var nestedCasted = (ImmutableList<T>) nested;
+            if (from == 0 && to == count) {
+                nestedCasted.forEach(action);
+            } else if (nested instanceof ImmutableListImpl<?>) {
+                ((ImmutableListImpl<T>) nestedCasted).forEachInRange(from, to, action);
+            } else {
+                for (var idx = from; idx < to; idx++) {
+                    action.accept(nestedCasted.get(idx));
+                }
+            }
+        } else if (chunk instanceof List<?> list && chunk instanceof RandomAccess) {
+            for (var idx = from; idx < to; idx++) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) list.get(idx);
+                action.accept(itCasted);
+            }
+        } else {
+            var event = new ListEvents.OpaqueTraversal();
+            event.begin();
+            var iterable = (Iterable<?>) chunk;
+            var iterator = iterable.iterator();
+            for (var idx = 0; idx < to; idx++) {
+                var item = iterator.next();
+                if (idx >= from) {
+                    @SuppressWarnings("unchecked")
+                    var itCasted = (T) item;
+                    action.accept(itCasted);
+                }
+            }
+            event.end("forEach", to, iterable);
+        }
+    }
+
+    static <T> void forEachIndexed(Object chunk, int offset, int count, ObjIntConsumer<? super T> action) {
+        if (chunk instanceof Object[] items) {
+            for (var idx = 0; idx < count; idx++) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) items[idx];
+                action.accept(itCasted, offset + idx);
+            }
+        } else if (chunk instanceof ImmutableListImpl<?> nested) {
+            @SuppressWarnings("unchecked")
+            var nestedCasted = (ImmutableListImpl<T>) nested;
+            nestedCasted.forEachIndexed(action, offset);
+        } else if (chunk instanceof ImmutableList<?> nested) {
+            @SuppressWarnings("unchecked")
+            var nestedCasted = (ImmutableList<T>) nested;
+            nestedCasted.forEachIndexed((item, idx) -> action.accept(item, offset + idx));
+        } else if (chunk instanceof List<?> list && chunk instanceof RandomAccess) {
+            for (int idx = 0, size = list.size(); idx < size; idx++) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) list.get(idx);
+                action.accept(itCasted, offset + idx);
+            }
+        } else {
+            var event = new ListEvents.OpaqueTraversal();
+            event.begin();
+            var iterable = (Iterable<?>) chunk;
+            var idx = offset;
+            for (var item : iterable) {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) item;
+                action.accept(itCasted, idx++);
+            }
+            event.end("forEachIndexed", count, iterable);
+        }
+    }
+
+    static void copyElements(Object chunk, int count, Object[] dest, int offset) {
+        if (count == 1) {
+            dest[offset] = chunk;
+        } else if (chunk instanceof Object[] items) {
+            System.arraycopy(items, 0, dest, offset, count);
+        } else if (chunk instanceof ImmutableList<?> nested) {
+            @SuppressWarnings("unchecked")
+            var nestedCasted = (ImmutableList<Object>) nested;
+            nestedCasted.copyInto(dest, offset);
+        } else if (chunk instanceof Collection<?> collection) {
+            System.arraycopy(collection.toArray(), 0, dest, offset, count);
+        } else {
+            var idx = offset;
+            for (var item : (Iterable<?>) chunk) {
+                dest[idx++] = item;
+            }
+        }
+    }
+
+    static Object elementAt(Object chunk, int index) {
+        if (chunk instanceof Object[] items) {
+            return items[index];
+        }
+        if (chunk instanceof ImmutableList<?> nested) {
+            return nested.get(index);
+        }
+        if (chunk instanceof List<?> list && chunk instanceof RandomAccess) {
+            return list.get(index);
+        }
+        var iterator = ((Iterable<?>) chunk).iterator();
+        for (var i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    static int indexOf(Object chunk, int count, Object item) {
+        if (chunk instanceof Object[] items) {
+            for (var idx = 0; idx < count; idx++) {
+                if (Objects.equals(item, items[idx])) {
+                    return idx;
+                }
+            }
+            return -1;
+        }
+        if (chunk instanceof ImmutableList<?> nested) {
+            return nested.indexOf(item);
+        }
+        // null-hostile lists such as List.of throw on indexOf(null)
+        if (item != null && chunk instanceof List<?> list) {
+            return list.indexOf(item);
+        }
+        var idx = 0;
+        for (var it : (Iterable<?>) chunk) {
+            if (Objects.equals(item, it)) {
+                return idx;
+            }
+            idx++;
+        }
+        return -1;
+    }
+
+    static int lastIndexOf(Object chunk, int count, Object item) {
+        if (chunk instanceof Object[] items) {
+            for (var idx = count - 1; idx >= 0; idx--) {
+                if (Objects.equals(item, items[idx])) {
+                    return idx;
+                }
+            }
+            return -1;
+        }
+        if (chunk instanceof ImmutableList<?> nested) {
+            return nested.lastIndexOf(item);
+        }
+        if (item != null && chunk instanceof List<?> list) {
+            return list.lastIndexOf(item);
+        }
+        var found = -1;
+        var idx = 0;
+        for (var it : (Iterable<?>) chunk) {
+            if (Objects.equals(item, it)) {
+                found = idx;
+            }
+            idx++;
+        }
+        return found;
+    }
+
+    // ImmutableList equality for implementations without a faster way: equal to any ImmutableList holding equal elements in the same order
+    static boolean equals(ImmutableList<?> list, Object other) {
+        if (other == list) {
+            return true;
+        }
+        if (!(other instanceof ImmutableList<?> that) || that.size() != list.size()) {
+            return false;
+        }
+        var mine = list.iterator();
+        var theirs = that.iterator();
+        while (mine.hasNext()) {
+            if (!Objects.equals(mine.next(), theirs.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean containsAll(ImmutableList<?> list, Iterable<?> items) {
+        HashSet<Object> elements = null;
+        var scanned = 0;
+        for (var item : items) {
+            if (elements == null && scanned++ < CONTAINS_ALL_SCAN_LIMIT) {
+                if (list.indexOf(item) < 0) {
+                    return false;
+                }
+                continue;
+            }
+            if (elements == null) {
+                elements = new HashSet<>(Math.max(16, (int) (list.size() / .75f) + 1));
+                list.forEach(elements::add);
+            }
+            if (!elements.contains(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // same as java.util.List's hashCode
+    static int hashCode(ImmutableList<?> list) {
+        var hash = 1;
+        for (var item : list) {
+            hash = 31 * hash + Objects.hashCode(item);
+        }
+        return hash;
+    }
+
+    // 31 to the given power, the factor a list hash is shifted by when count more elements are folded in
+    static int pow31(int power) {
+        var result = 1;
+        for (var base = 31; power > 0; power >>= 1, base *= base) {
+            if ((power & 1) != 0) {
+                result *= base;
+            }
+        }
+        return result;
+    }
+
+    static final class IndexedIterator<T> implements Iterator<T> {
+
+        private final ImmutableList<T> list;
+        private int index;
+        private final int fence;
+
+        IndexedIterator(ImmutableList<T> list, int index, int fence) {
+            this.list = list;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < fence;
+        }
+
+        @Override
+        public T next() {
+            if (index >= fence) {
+                throw new NoSuchElementException();
+            }
+            return list.get(index++);
+        }
+    }
+
+    // spliterator of any ImmutableList through get, for implementations with cheap indexed access
+    static final class IndexedSpliterator<T> implements Spliterator<T> {
+
+        private final ImmutableList<T> list;
+        private int index;
+        private final int fence;
+
+        IndexedSpliterator(ImmutableList<T> list, int index, int fence) {
+            this.list = list;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(list.get(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            for (var idx = index; idx < fence; idx++) {
+                action.accept(list.get(idx));
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            var mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            var prefix = new IndexedSpliterator<>(list, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.varlanv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// a lazy view of source passed through a chain of stages, fused into the one consumer every traversal pushes
+// the source's elements through; a chain of maps only also keeps the source's size and indexes
+final class LazyList<T> implements ImmutableList<T> {
+
+    private final ImmutableList<?> source;
+    // null for no stages
+    private final Stage stage;
+    // every stage composed, as long as all of them are maps
+    private final Function<Object, Object> mapper;
+    // no more elements than the source has, as long as there is no flatMap in the chain
+    private final boolean bounded;
+    private volatile ImmutableList<T> forced;
+
+    private LazyList(ImmutableList<?> source, Stage stage, Function<Object, Object> mapper, boolean bounded) {
+        this.source = source;
+        this.stage = stage;
+        this.mapper = mapper;
+        this.bounded = bounded;
+    }
+
+    static <T> LazyList<T> of(ImmutableList<T> source) {
+        if (source instanceof LazyList<T> lazy) {
+            return lazy;
+        }
+        return new LazyList<>(source, null, Function.identity(), true);
+    }
+
+    @Override
+    public <R> LazyList<R> map(Function<? super T, ? extends R> mapper) {
+        @SuppressWarnings("unchecked")
+        var mapperCasted = (Function<Object, Object>) mapper;
+        return then((downstream, traversal) -> item -> downstream.accept(mapperCasted.apply(item)), mapperCasted, true);
+    }
+
+    @Override
+    public LazyList<T> filter(Predicate<? super T> predicate) {
+        @SuppressWarnings("unchecked")
+        var predicateCasted = (Predicate<Object>) predicate;
+        return then((downstream, traversal) -> item -> {
+            if (predicateCasted.test(item)) {
+                downstream.accept(item);
+            }
+        }, null, true);
+    }
+
+    @Override
+    public <R> LazyList<R> flatMap(Function<? super T, ? extends Iterable<? extends R>> mapper) {
+        @SuppressWarnings("unchecked")
+        var mapperCasted = (Function<Object, ? extends Iterable<?>>) mapper;
+        return then((downstream, traversal) -> item -> mapperCasted.apply(item).forEach(downstream), null, false);
+    }
+
+    // the first rejected element ends the whole traversal, nothing after it can pass anyway
+    @Override
+    public LazyList<T> takeWhile(Predicate<? super T> predicate) {
+        @SuppressWarnings("unchecked")
+        var predicateCasted = (Predicate<Object>) predicate;
+        return then((downstream, traversal) -> item -> {
+            if (!predicateCasted.test(item)) {
+                throw new Stop(traversal);
+            }
+            downstream.accept(item);
+        }, null, true);
+    }
+
+    @Override
+    public LazyList<T> distinct() {
+        return then((downstream, traversal) -> {
+            var seen = new HashSet<>();
+            return item -> {
+                if (seen.add(item)) {
+                    downstream.accept(item);
+                }
+            };
+        }, null, true);
+    }
+
+    @Override
+    public ImmutableList<T> materialize() {
+        var forced = this.forced;
+        if (forced == null) {
+            if (bounded) {
+                // the source size bounds the result, an array mostly filled is kept as is instead of trimmed
+                var items = new Object[source.size()];
+                var count = new int[1];
+                forEach(item -> items[count[0]++] = item);
+                forced = count[0] > SmallList.MAX_SIZE && count[0] * 4 >= items.length * 3
+                        ? ImmutableListImpl.ofChunk(items, count[0])
+                        : ImmutableListImpl.adopt(Arrays.copyOf(items, count[0]));
+            } else {
+                var items = new ArrayList<T>();
+                forEach(items::add);
+                forced = ImmutableListImpl.adopt(items.toArray());
+            }
+            this.forced = forced;
+        }
+        return forced;
+    }
+
+    @Override
+    public LazyList<T> force() {
+        materialize();
+        return this;
+    }
+
+    @Override
+    public ImmutableList<T> add(T item) {
+        return materialize().add(item);
+    }
+
+    @Override
+    public ImmutableList<T> addIterable(Iterable<T> items) {
+        return materialize().addIterable(items);
+    }
+
+    @Override
+    public ImmutableList<T> combine(ImmutableList<T> other) {
+        return materialize().combine(other);
+    }
+
+    @Override
+    public ImmutableList<T> compact() {
+        return materialize();
+    }
+
+    @Override
+    public void copyInto(T[] dest, int offset) {
+        materialize().copyInto(dest, offset);
+    }
+
+    // one pass without forcing, presizing the target would need the size and so a pass of its own
+    @Override
+    public <R extends Collection<T>> R copyTo(Supplier<R> supplier) {
+        var forced = this.forced;
+        if (forced != null) {
+            return forced.copyTo(supplier);
+        }
+        var r = supplier.get();
+        forEach(r::add);
+        return r;
+    }
+
+    @Override
+    public ImmutableList<T> withMutations(Consumer<MutableView<T>> mutations) {
+        return materialize().withMutations(mutations);
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        var forced = this.forced;
+        if (forced != null) {
+            forced.forEach(action);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        var actionCasted = (Consumer<Object>) action;
+        @SuppressWarnings("unchecked")
+        var sourceCasted = (ImmutableList<Object>) source;
+        try {
+            sourceCasted.forEach(stage == null ? actionCasted : stage.wrap(actionCasted, action));
+        } catch (Stop stop) {
+            // a Stop thrown by a nested traversal, such as one inside flatMap, belongs to that traversal
+            if (stop.traversal != action) {
+                throw stop;
+            }
+        }
+    }
+
+    @Override
+    public void forEachIndexed(ObjIntConsumer<? super T> action) {
+        var idx = new int[1];
+        forEach(item -> action.accept(item, idx[0]++));
+    }
+
+    // pulling elements cannot run the pushed stages lazily, so anything but a chain of maps is materialized first
+    @Override
+    public Iterator<T> iterator() {
+        if (forced != null || mapper == null) {
+            return materialize().iterator();
+        }
+        var iterator = source.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                @SuppressWarnings("unchecked")
+                var itCasted = (T) mapper.apply(iterator.next());
+                return itCasted;
+            }
+        };
+    }
+
+    boolean isRandomAccess() {
+        return mapper == null || ListView.isRandomAccess(source);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other == this || materialize().equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return materialize().hashCode();
+    }
+
+    @Override
+    public int size() {
+        return mapper != null ? source.size() : materialize().size();
+    }
+
+    @Override
+    public T get(int index) {
+        if (mapper == null) {
+            return materialize().get(index);
+        }
+        @SuppressWarnings("unchecked")
+        var itCasted = (T) mapper.apply(source.get(index));
+        return itCasted;
+    }
+
+    // nextMapper is the function of a map stage, null for any other stage
+    private <R> LazyList<R> then(Stage next, Function<Object, Object> nextMapper, boolean nextBounded) {
+        var forced = this.forced;
+        if (forced != null) {
+            return new LazyList<>(forced, next, nextMapper, nextBounded);
+        }
+        var stage = this.stage;
+        return new LazyList<>(
+                source,
+                stage == null ? next : (downstream, traversal) -> stage.wrap(next.wrap(downstream, traversal), traversal),
+                mapper == null || nextMapper == null ? null : mapper.andThen(nextMapper),
+                bounded && nextBounded);
+    }
+
+    // builds the consumer a stage feeds its output to, once per traversal
+    interface Stage {
+
+        Consumer<Object> wrap(Consumer<Object> downstream, Object traversal);
+    }
+
+    // ends a traversal early, thrown at most once per traversal
+    private static final class Stop extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        final Object traversal;
+
+        Stop(Object traversal) {
+            super(null, null, false, false);
+            this.traversal = traversal;
+        }
+    }
+}
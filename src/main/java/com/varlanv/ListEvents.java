@@ -0,0 +1,121 @@
+package com.varlanv;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder events for the costly paths of ImmutableListImpl. All are disabled unless a recording turns them on,
+// e.g. with -XX:StartFlightRecording:settings=custom.jfc listing com.varlanv.*#enabled=true; while disabled,
+// begin and shouldCommit do nothing and the event object is never committed, so escape analysis removes it
+final class ListEvents {
+
+    // backing-array copies of fewer chunks are not recorded
+    static final int MIN_COPY_CHUNKS = Integer.getInteger("com.varlanv.jfr.minCopyChunks", 1_024);
+
+    private ListEvents() {
+    }
+
+    static void slotTaken(int chunks, int elements) {
+        var event = new SlotTaken();
+        if (event.shouldCommit()) {
+            event.chunks = chunks;
+            event.elements = elements;
+            event.commit();
+        }
+    }
+
+    @Name("com.varlanv.ArrayCopy")
+    @Label("Backing Array Copy")
+    @Description("An add or combine copied the backing array instead of appending to it in place")
+    @Category("Immutable List")
+    @Enabled(false)
+    static final class ArrayCopy extends Event {
+
+        @Label("Chunks")
+        int chunks;
+
+        @Label("Elements")
+        int elements;
+
+        void end(int chunks, int elements) {
+            if (chunks >= MIN_COPY_CHUNKS && shouldCommit()) {
+                this.chunks = chunks;
+                this.elements = elements;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.varlanv.OpaqueTraversal")
+    @Label("Opaque Iterable Traversal")
+    @Description("A viewed Iterable without indexed access was walked from its start to count or visit elements")
+    @Category("Immutable List")
+    @Enabled(false)
+    static final class OpaqueTraversal extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Elements")
+        int elements;
+
+        @Label("Iterable Type")
+        Class<?> iterableType;
+
+        void end(String operation, int elements, Iterable<?> iterable) {
+            if (shouldCommit()) {
+                this.operation = operation;
+                this.elements = elements;
+                this.iterableType = iterable.getClass();
+                commit();
+            }
+        }
+    }
+
+    @Name("com.varlanv.Compaction")
+    @Label("Chunk Compaction")
+    @Description("Small chunks were merged, or nested lists flattened, into a new backing array")
+    @Category("Immutable List")
+    @Enabled(false)
+    static final class Compaction extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Chunks Before")
+        int chunksBefore;
+
+        @Label("Chunks After")
+        int chunksAfter;
+
+        @Label("Elements")
+        int elements;
+
+        void end(String operation, int chunksBefore, int chunksAfter, int elements) {
+            if (shouldCommit()) {
+                this.operation = operation;
+                this.chunksBefore = chunksBefore;
+                this.chunksAfter = chunksAfter;
+                this.elements = elements;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.varlanv.SlotTaken")
+    @Label("Slot Already Claimed")
+    @Description("The next slot of the backing array was claimed by another version, so the add fell back to a copy")
+    @Category("Immutable List")
+    @Enabled(false)
+    static final class SlotTaken extends Event {
+
+        @Label("Chunks")
+        int chunks;
+
+        @Label("Elements")
+        int elements;
+    }
+}
@@ -0,0 +1,47 @@
+package com.varlanv;
+
+import java.util.Map;
+
+// structure of one list as seen by ImmutableLists.stats. Chunks are counted by kind: single elements,
+// Object[] snapshots, nested lists, and viewed iterables, which are kept alive by the list and counted by class name.
+// The backing array is shared by the versions appending into it, so usedSlots is this version's share of arrayLength.
+// Byte estimates assume compressed oops and cover the list's own structure and Object[] chunks, never the elements
+public record ListStats(
+        int size,
+        int chunkCount,
+        int elementChunks,
+        int arrayChunks,
+        int listChunks,
+        int iterableChunks,
+        Map<String, Integer> viewedIterables,
+        int arrayLength,
+        int usedSlots,
+        long shallowBytes,
+        long retainedBytes,
+        int depth) {
+
+    static final int OBJECT_HEADER_BYTES = 12;
+    static final int ARRAY_HEADER_BYTES = 16;
+    static final int REFERENCE_BYTES = 4;
+
+    public int unusedSlots() {
+        return arrayLength - usedSlots;
+    }
+
+    // a list whose structure is not broken down any further
+    static ListStats opaque(int size, long shallowBytes) {
+        return new ListStats(size, 0, 0, 0, 0, 0, Map.of(), 0, 0, shallowBytes, shallowBytes, 0);
+    }
+
+    static long objectBytes(int fieldBytes) {
+        return align(OBJECT_HEADER_BYTES + fieldBytes);
+    }
+
+    static long arrayBytes(int length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + (long) length * elementBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
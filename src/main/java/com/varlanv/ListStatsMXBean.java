@@ -0,0 +1,39 @@
+package com.varlanv;
+
+// totals of the ListStats of lists passed to ImmutableLists.sample, one in sampleRate of them on average;
+// registered with ImmutableLists.registerStatsMBean under OBJECT_NAME
+public interface ListStatsMXBean {
+
+    String OBJECT_NAME = "com.varlanv:type=ImmutableListStats";
+
+    // 0 turns sampling off
+    int getSampleRate();
+
+    void setSampleRate(int sampleRate);
+
+    long getOffered();
+
+    long getSampled();
+
+    long getElements();
+
+    long getChunks();
+
+    long getElementChunks();
+
+    long getArrayChunks();
+
+    long getListChunks();
+
+    long getIterableChunks();
+
+    long getArraySlots();
+
+    long getUnusedSlots();
+
+    long getRetainedBytes();
+
+    int getMaxDepth();
+
+    void reset();
+}
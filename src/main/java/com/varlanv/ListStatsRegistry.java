@@ -0,0 +1,143 @@
+package com.varlanv;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+final class ListStatsRegistry implements ListStatsMXBean {
+
+    static final int DEFAULT_SAMPLE_RATE = 1_024;
+    static final ListStatsRegistry SHARED = new ListStatsRegistry();
+
+    private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder elements = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder elementChunks = new LongAdder();
+    private final LongAdder arrayChunks = new LongAdder();
+    private final LongAdder listChunks = new LongAdder();
+    private final LongAdder iterableChunks = new LongAdder();
+    private final LongAdder arraySlots = new LongAdder();
+    private final LongAdder unusedSlots = new LongAdder();
+    private final LongAdder retainedBytes = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+    // counters are independent, so a reader may see a sample partly added
+    void offer(ImmutableList<?> list) {
+        var sampleRate = this.sampleRate;
+        if (sampleRate == 0) {
+            return;
+        }
+        offered.increment();
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        var stats = ImmutableLists.stats(list);
+        sampled.increment();
+        elements.add(stats.size());
+        chunks.add(stats.chunkCount());
+        elementChunks.add(stats.elementChunks());
+        arrayChunks.add(stats.arrayChunks());
+        listChunks.add(stats.listChunks());
+        iterableChunks.add(stats.iterableChunks());
+        arraySlots.add(stats.arrayLength());
+        unusedSlots.add(stats.unusedSlots());
+        retainedBytes.add(stats.retainedBytes());
+        maxDepth.accumulate(stats.depth());
+    }
+
+    ObjectName register() throws JMException {
+        var name = new ObjectName(OBJECT_NAME);
+        var server = ManagementFactory.getPlatformMBeanServer();
+        if (!server.isRegistered(name)) {
+            server.registerMBean(this, name);
+        }
+        return name;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("sampleRate cannot be negative");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public long getOffered() {
+        return offered.sum();
+    }
+
+    @Override
+    public long getSampled() {
+        return sampled.sum();
+    }
+
+    @Override
+    public long getElements() {
+        return elements.sum();
+    }
+
+    @Override
+    public long getChunks() {
+        return chunks.sum();
+    }
+
+    @Override
+    public long getElementChunks() {
+        return elementChunks.sum();
+    }
+
+    @Override
+    public long getArrayChunks() {
+        return arrayChunks.sum();
+    }
+
+    @Override
+    public long getListChunks() {
+        return listChunks.sum();
+    }
+
+    @Override
+    public long getIterableChunks() {
+        return iterableChunks.sum();
+    }
+
+    @Override
+    public long getArraySlots() {
+        return arraySlots.sum();
+    }
+
+    @Override
+    public long getUnusedSlots() {
+        return unusedSlots.sum();
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        return retainedBytes.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public void reset() {
+        for (var adder : new LongAdder[]{offered, sampled, elements, chunks, elementChunks, arrayChunks, listChunks,
+                iterableChunks, arraySlots, unusedSlots, retainedBytes}) {
+            adder.reset();
+        }
+        maxDepth.reset();
+    }
+}
@@ -0,0 +1,153 @@
+package com.varlanv;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// the java.util.List face of an ImmutableList; bulk operations go through the list's own traversal instead of AbstractList's iterator loops
+class ListView<T> extends AbstractList<T> {
+
+    final ImmutableList<T> list;
+
+    ListView(ImmutableList<T> list) {
+        this.list = list;
+    }
+
+    static <T> List<T> of(ImmutableList<T> list) {
+        return isRandomAccess(list) ? new RandomAccessListView<>(list) : new ListView<>(list);
+    }
+
+    static boolean isRandomAccess(ImmutableList<?> list) {
+        if (list instanceof ImmutableListImpl<?> impl) {
+            return impl.isRandomAccess();
+        } else if (list instanceof SliceList<?> slice) {
+            return isRandomAccess(slice.parent());
+        } else if (list instanceof LazyList<?> lazy) {
+            return lazy.isRandomAccess();
+        }
+        return list instanceof SmallList<?> || list instanceof SortedArrayList<?> || list instanceof RrbVector<?>
+                || list instanceof OffHeapImmutableList<?>;
+    }
+
+    @Override
+    public T get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return list.iterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        list.forEach(action);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return list.spliterator();
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return list.stream();
+    }
+
+    @Override
+    public Stream<T> parallelStream() {
+        return list.parallelStream();
+    }
+
+    @Override
+    public int indexOf(Object item) {
+        return list.indexOf(item);
+    }
+
+    @Override
+    public int lastIndexOf(Object item) {
+        return list.lastIndexOf(item);
+    }
+
+    @Override
+    public boolean contains(Object item) {
+        return list.indexOf(item) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> items) {
+        return list.containsAll(items);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return InternalUtil.toArray(list);
+    }
+
+    @Override
+    public <A> A[] toArray(A[] array) {
+        var size = list.size();
+        @SuppressWarnings("unchecked")
+        var result = array.length >= size ? array : (A[]) Array.newInstance(array.getClass().getComponentType(), size);
+        @SuppressWarnings("unchecked")
+        var listCasted = (ImmutableList<A>) list;
+        listCasted.copyInto(result, 0);
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    @Override
+    public List<T> subList(int from, int to) {
+        return of(list.slice(from, to));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (!(other instanceof List<?> that)) {
+            return false;
+        }
+        if (that instanceof ListView<?> view) {
+            return list.equals(view.list);
+        }
+        if (that.size() != list.size()) {
+            return false;
+        }
+        var mine = list.iterator();
+        var theirs = that.iterator();
+        while (mine.hasNext()) {
+            if (!Objects.equals(mine.next(), theirs.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return list.hashCode();
+    }
+
+    static final class RandomAccessListView<T> extends ListView<T> implements RandomAccess {
+
+        RandomAccessListView(ImmutableList<T> list) {
+            super(list);
+        }
+    }
+}
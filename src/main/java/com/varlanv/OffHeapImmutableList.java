@@ -0,0 +1,258 @@
+package com.varlanv;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+// elements live in direct or file-mapped buffers outside the GC-managed heap and are decoded on every read;
+// close() invalidates the list, after which every read fails, including reads through versions derived with add or
+// combine; the buffers' memory is not freed by close but reclaimed by the GC once nothing references them
+public final class OffHeapImmutableList<T> implements ImmutableList<T>, AutoCloseable {
+
+    // a direct ByteBuffer is int-indexed, so larger lists are split into segments
+    static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private final SegmentReader<T> reader;
+    private final int size;
+    private final int segmentLength;
+    private volatile ByteBuffer[] segments;
+
+    OffHeapImmutableList(SegmentReader<T> reader, ByteBuffer[] segments, int size, int segmentLength) {
+        this.reader = reader;
+        this.segments = segments;
+        this.size = size;
+        this.segmentLength = segmentLength;
+    }
+
+    OffHeapImmutableList(Codec<T> codec, ByteBuffer[] segments, int size, int segmentLength) {
+        this(fixedWidth(codec), segments, size, segmentLength);
+    }
+
+    static <T> SegmentReader<T> fixedWidth(Codec<T> codec) {
+        var byteSize = codec.byteSize();
+        return (segment, idx) -> codec.read(segment, idx * byteSize);
+    }
+
+    public static <T> OffHeapImmutableList<T> copyOf(Codec<T> codec, ImmutableList<? extends T> items) {
+        var writer = new Writer<>(codec, items.size());
+        items.forEach(writer::write);
+        return writer.finish();
+    }
+
+    public static <T> OffHeapImmutableList<T> copyOf(Codec<T> codec, Collection<? extends T> items) {
+        var writer = new Writer<>(codec, items.size());
+        items.forEach(writer::write);
+        return writer.finish();
+    }
+
+    public static OffHeapImmutableList<Integer> ofInts(int... items) {
+        var writer = new Writer<>(Codec.INT, items.length);
+        for (var item : items) {
+            writer.buffer().putInt(item);
+        }
+        return writer.finish();
+    }
+
+    public static OffHeapImmutableList<Long> ofLongs(long... items) {
+        var writer = new Writer<>(Codec.LONG, items.length);
+        for (var item : items) {
+            writer.buffer().putLong(item);
+        }
+        return writer.finish();
+    }
+
+    public static OffHeapImmutableList<Double> ofDoubles(double... items) {
+        var writer = new Writer<>(Codec.DOUBLE, items.length);
+        for (var item : items) {
+            writer.buffer().putDouble(item);
+        }
+        return writer.finish();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        var segments = segments();
+        var remaining = size;
+        for (var segment : segments) {
+            for (int idx = 0, count = Math.min(remaining, segmentLength); idx < count; idx++) {
+                action.accept(reader.read(segment, idx));
+            }
+            remaining -= segmentLength;
+        }
+    }
+
+    @Override
+    public void forEachIndexed(ObjIntConsumer<? super T> action) {
+        var segments = segments();
+        var offset = 0;
+        for (var segment : segments) {
+            for (int idx = 0, count = Math.min(size - offset, segmentLength); idx < count; idx++) {
+                action.accept(reader.read(segment, idx), offset + idx);
+            }
+            offset += segmentLength;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return reader.read(segments()[index / segmentLength], index % segmentLength);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return InternalUtil.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return InternalUtil.hashCode(this);
+    }
+
+    public boolean isClosed() {
+        return segments == null;
+    }
+
+    // invalidates the list only, the memory is reclaimed by the GC like any direct or mapped buffer's
+    @Override
+    public void close() {
+        segments = null;
+    }
+
+    private ByteBuffer[] segments() {
+        var segments = this.segments;
+        if (segments == null) {
+            throw new IllegalStateException("list is closed");
+        }
+        return segments;
+    }
+
+    // decodes the idx-th element of one segment
+    interface SegmentReader<T> {
+
+        T read(ByteBuffer segment, int idx);
+    }
+
+    // fixed-width encoding of one element at an absolute offset, must not move the buffer position
+    public interface Codec<T> {
+
+        Codec<Integer> INT = new Codec<>() {
+
+            @Override
+            public int byteSize() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+                return buffer.getInt(offset);
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, Integer value) {
+                buffer.putInt(offset, value);
+            }
+        };
+
+        Codec<Long> LONG = new Codec<>() {
+
+            @Override
+            public int byteSize() {
+                return Long.BYTES;
+            }
+
+            @Override
+            public Long read(ByteBuffer buffer, int offset) {
+                return buffer.getLong(offset);
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, Long value) {
+                buffer.putLong(offset, value);
+            }
+        };
+
+        Codec<Double> DOUBLE = new Codec<>() {
+
+            @Override
+            public int byteSize() {
+                return Double.BYTES;
+            }
+
+            @Override
+            public Double read(ByteBuffer buffer, int offset) {
+                return buffer.getDouble(offset);
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, Double value) {
+                buffer.putDouble(offset, value);
+            }
+        };
+
+        int byteSize();
+
+        T read(ByteBuffer buffer, int offset);
+
+        void write(ByteBuffer buffer, int offset, T value);
+    }
+
+    private static final class Writer<T> {
+
+        private final Codec<T> codec;
+        private final int size;
+        private final int segmentLength;
+        private final ByteBuffer[] segments;
+        private int written;
+
+        Writer(Codec<T> codec, int size) {
+            if (codec.byteSize() <= 0) {
+                throw new IllegalArgumentException("codec byteSize must be positive");
+            }
+            this.codec = codec;
+            this.size = size;
+            this.segmentLength = MAX_SEGMENT_BYTES / codec.byteSize();
+            this.segments = new ByteBuffer[(int) (((long) size + segmentLength - 1) / segmentLength)];
+        }
+
+        // the segment the next element goes to, positioned at it
+        ByteBuffer buffer() {
+            if (written == size) {
+                throw new IllegalStateException("more elements than expected");
+            }
+            var segmentIdx = written / segmentLength;
+            if (segments[segmentIdx] == null) {
+                var length = Math.min(size - written, segmentLength);
+                segments[segmentIdx] = ByteBuffer.allocateDirect(length * codec.byteSize()).order(ByteOrder.nativeOrder());
+            }
+            written++;
+            return segments[segmentIdx];
+        }
+
+        void write(T item) {
+            var buffer = buffer();
+            var offset = buffer.position();
+            codec.write(buffer, offset, item);
+            buffer.position(offset + codec.byteSize());
+        }
+
+        OffHeapImmutableList<T> finish() {
+            if (written != size) {
+                throw new IllegalStateException("expected " + size + " elements but got " + written);
+            }
+            var readOnly = new ByteBuffer[segments.length];
+            for (var idx = 0; idx < segments.length; idx++) {
+                readOnly[idx] = segments[idx].asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+            }
+            return new OffHeapImmutableList<>(codec, readOnly, size, segmentLength);
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// relaxed radix-balanced tree: leaves are Object[] of at most WIDTH elements, inner nodes carry a size table
+// so leaves and nodes may be partially filled after insert, remove, slice and concat, which is what keeps those O(log n);
+// appends go to a separate tail that is pushed into the tree as one leaf once full
+final class RrbVector<T> implements ImmutableVector<T> {
+
+    private static final int WIDTH = 32;
+    // how many nodes beyond the fewest possible a concat seam may keep before it is rebalanced
+    private static final int EXTRA_NODES = 2;
+    private static final Object[] NO_ELEMENTS = new Object[0];
+    private static final RrbVector<?> EMPTY = new RrbVector<>(null, 0, 0, NO_ELEMENTS);
+
+    // a leaf at height 0, a Node above that, null when the tree is empty
+    private final Object root;
+    private final int height;
+    private final int treeSize;
+    private final Object[] tail;
+
+    private RrbVector(Object root, int height, int treeSize, Object[] tail) {
+        this.root = root;
+        this.height = height;
+        this.treeSize = treeSize;
+        this.tail = tail;
+    }
+
+    static <T> RrbVector<T> empty() {
+        @SuppressWarnings("unchecked")
+        var empty = (RrbVector<T>) EMPTY;
+        return empty;
+    }
+
+    static <T> RrbVector<T> ofArray(Object[] items) {
+        if (items.length == 0) {
+            return empty();
+        }
+        var tailStart = (items.length - 1) / WIDTH * WIDTH;
+        var tail = Arrays.copyOfRange(items, tailStart, items.length, Object[].class);
+        if (tailStart == 0) {
+            return new RrbVector<>(null, 0, 0, tail);
+        }
+        var nodes = new Object[tailStart / WIDTH];
+        for (var idx = 0; idx < nodes.length; idx++) {
+            nodes[idx] = Arrays.copyOfRange(items, idx * WIDTH, (idx + 1) * WIDTH, Object[].class);
+        }
+        var height = 0;
+        for (var count = nodes.length; count > 1; count = (count + WIDTH - 1) / WIDTH) {
+            height++;
+            for (var idx = 0; idx * WIDTH < count; idx++) {
+                nodes[idx] = new Node(Arrays.copyOfRange(nodes, idx * WIDTH, Math.min(count, (idx + 1) * WIDTH)), height);
+            }
+        }
+        return new RrbVector<>(nodes[0], height, tailStart, tail);
+    }
+
+    static <T> RrbVector<T> copyOf(ImmutableList<T> items) {
+        if (items instanceof RrbVector<T> vector) {
+            return vector;
+        }
+        var array = new Object[items.size()];
+        items.forEachIndexed((item, idx) -> array[idx] = item);
+        return ofArray(array);
+    }
+
+    @Override
+    public RrbVector<T> add(T item) {
+        if (tail.length < WIDTH) {
+            var newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = item;
+            return new RrbVector<>(root, height, treeSize, newTail);
+        }
+        return pushTail(new Object[]{item});
+    }
+
+    @Override
+    public RrbVector<T> addIterable(Iterable<T> items) {
+        return concat(ofArray(InternalUtil.toArray(items)));
+    }
+
+    @Override
+    public RrbVector<T> combine(ImmutableList<T> other) {
+        return concat(copyOf(other));
+    }
+
+    @Override
+    public RrbVector<T> set(int index, T item) {
+        Objects.checkIndex(index, size());
+        if (index >= treeSize) {
+            var newTail = tail.clone();
+            newTail[index - treeSize] = item;
+            return new RrbVector<>(root, height, treeSize, newTail);
+        }
+        return new RrbVector<>(set(root, height, index, item), height, treeSize, tail);
+    }
+
+    @Override
+    public RrbVector<T> insert(int index, T item) {
+        Objects.checkIndex(index, size() + 1);
+        if (index >= treeSize) {
+            var newTail = inserted(tail, index - treeSize, item);
+            if (newTail.length <= WIDTH) {
+                return new RrbVector<>(root, height, treeSize, newTail);
+            }
+            var pushed = new RrbVector<T>(root, height, treeSize, Arrays.copyOf(newTail, WIDTH));
+            return pushed.pushTail(new Object[]{newTail[WIDTH]});
+        }
+        return grown(insert(root, height, index, item), height, treeSize + 1, tail);
+    }
+
+    @Override
+    public RrbVector<T> removeAt(int index) {
+        Objects.checkIndex(index, size());
+        if (index >= treeSize) {
+            return new RrbVector<>(root, height, treeSize, removed(tail, index - treeSize));
+        }
+        return shrunk(removeAt(root, height, index), height, treeSize - 1, tail);
+    }
+
+    @Override
+    public RrbVector<T> slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, size());
+        if (from == 0 && to == size()) {
+            return this;
+        } else if (from == to) {
+            return empty();
+        }
+        var newTail = Arrays.copyOfRange(tail, Math.max(from - treeSize, 0), Math.max(to - treeSize, 0));
+        var treeTo = Math.min(to, treeSize);
+        if (from >= treeTo) {
+            return new RrbVector<>(null, 0, 0, newTail);
+        }
+        var node = take(root, height, treeTo);
+        return shrunk(drop(node, height, from), height, treeTo - from, newTail);
+    }
+
+    @Override
+    public RrbVector<T> concat(ImmutableVector<T> other) {
+        var that = copyOf(other);
+        if (that.size() == 0) {
+            return this;
+        } else if (size() == 0) {
+            return that;
+        } else if (that.treeSize == 0) {
+            if (tail.length + that.tail.length <= WIDTH) {
+                var newTail = Arrays.copyOf(tail, tail.length + that.tail.length);
+                System.arraycopy(that.tail, 0, newTail, tail.length, that.tail.length);
+                return new RrbVector<>(root, height, treeSize, newTail);
+            }
+            return pushTail(that.tail);
+        }
+        var left = pushTail(NO_ELEMENTS);
+        var joined = join(left.root, left.height, that.root, that.height);
+        return grown(joined, Math.max(left.height, that.height), left.treeSize + that.treeSize, that.tail);
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        if (root != null) {
+            forEach(root, height, action);
+        }
+        for (var item : tail) {
+            @SuppressWarnings("unchecked")
+            var itCasted = (T) item;
+            action.accept(itCasted);
+        }
+    }
+
+    @Override
+    public void copyInto(T[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, size(), dest.length);
+        if (root != null) {
+            copyInto(root, height, dest, offset);
+        }
+        System.arraycopy(tail, 0, dest, offset + treeSize, tail.length);
+    }
+
+    @Override
+    public int size() {
+        return treeSize + tail.length;
+    }
+
+    // levels of inner nodes above the leaves
+    int height() {
+        return height;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        Object item;
+        if (index >= treeSize) {
+            item = tail[index - treeSize];
+        } else {
+            var node = root;
+            for (var level = height; level > 0; level--) {
+                var inner = (Node) node;
+                var idx = inner.childIndexOf(index);
+                index -= inner.startOf(idx);
+                node = inner.children[idx];
+            }
+            item = ((Object[]) node)[index];
+        }
+        @SuppressWarnings("unchecked")
+        var itCasted = (T) item;
+        return itCasted;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return InternalUtil.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return InternalUtil.hashCode(this);
+    }
+
+    // moves the current tail into the tree as its last leaf
+    private RrbVector<T> pushTail(Object[] newTail) {
+        if (tail.length == 0) {
+            return new RrbVector<>(root, height, treeSize, newTail);
+        } else if (root == null) {
+            return new RrbVector<>(tail, 0, tail.length, newTail);
+        }
+        return grown(join(root, height, tail, 0), height, treeSize + tail.length, newTail);
+    }
+
+    // parts are one or two nodes of the given height, two of them get a new root
+    private static <T> RrbVector<T> grown(Object[] parts, int height, int treeSize, Object[] tail) {
+        if (parts.length == 1) {
+            return new RrbVector<>(parts[0], height, treeSize, tail);
+        }
+        return new RrbVector<>(new Node(parts, height + 1), height + 1, treeSize, tail);
+    }
+
+    // drops roots left with a single child, node is null when nothing is left of the tree
+    private static <T> RrbVector<T> shrunk(Object node, int height, int treeSize, Object[] tail) {
+        if (node == null) {
+            return new RrbVector<>(null, 0, 0, tail);
+        }
+        while (height > 0 && ((Node) node).children.length == 1) {
+            node = ((Node) node).children[0];
+            height--;
+        }
+        return new RrbVector<>(node, height, treeSize, tail);
+    }
+
+    private static Object set(Object node, int height, int index, Object item) {
+        if (height == 0) {
+            var leaf = ((Object[]) node).clone();
+            leaf[index] = item;
+            return leaf;
+        }
+        var inner = (Node) node;
+        var idx = inner.childIndexOf(index);
+        var children = inner.children.clone();
+        children[idx] = set(children[idx], height - 1, index - inner.startOf(idx), item);
+        return new Node(children, inner.sizes);
+    }
+
+    private static Object[] insert(Object node, int height, int index, Object item) {
+        if (height == 0) {
+            return halves(inserted((Object[]) node, index, item), 0);
+        }
+        var inner = (Node) node;
+        var idx = inner.childIndexOf(index);
+        var parts = insert(inner.children[idx], height - 1, index - inner.startOf(idx), item);
+        return halves(replaced(inner.children, idx, parts), height);
+    }
+
+    private static Object removeAt(Object node, int height, int index) {
+        if (height == 0) {
+            var leaf = (Object[]) node;
+            return leaf.length == 1 ? null : removed(leaf, index);
+        }
+        var inner = (Node) node;
+        var idx = inner.childIndexOf(index);
+        var child = removeAt(inner.children[idx], height - 1, index - inner.startOf(idx));
+        if (child != null) {
+            return new Node(replaced(inner.children, idx, new Object[]{child}), height);
+        }
+        return inner.children.length == 1 ? null : new Node(removed(inner.children, idx), height);
+    }
+
+    // the first count elements of node, count is at least 1
+    private static Object take(Object node, int height, int count) {
+        if (height == 0) {
+            var leaf = (Object[]) node;
+            return count == leaf.length ? leaf : Arrays.copyOf(leaf, count);
+        }
+        var inner = (Node) node;
+        if (count == inner.size()) {
+            return inner;
+        }
+        var idx = inner.childIndexOf(count - 1);
+        var children = Arrays.copyOf(inner.children, idx + 1);
+        children[idx] = take(children[idx], height - 1, count - inner.startOf(idx));
+        return new Node(children, height);
+    }
+
+    // node without its first count elements, at least one element remains
+    private static Object drop(Object node, int height, int count) {
+        if (count == 0) {
+            return node;
+        } else if (height == 0) {
+            var leaf = (Object[]) node;
+            return Arrays.copyOfRange(leaf, count, leaf.length);
+        }
+        var inner = (Node) node;
+        var idx = inner.childIndexOf(count);
+        var children = Arrays.copyOfRange(inner.children, idx, inner.children.length);
+        children[0] = drop(children[0], height - 1, count - inner.startOf(idx));
+        return new Node(children, height);
+    }
+
+    // concatenates two trees, merging only the nodes along the seam between them; returns one or two nodes of the taller height
+    private static Object[] join(Object left, int leftHeight, Object right, int rightHeight) {
+        if (leftHeight > rightHeight) {
+            var inner = (Node) left;
+            var last = inner.children.length - 1;
+            var seam = join(inner.children[last], leftHeight - 1, right, rightHeight);
+            return packed(replaced(inner.children, last, seam), leftHeight);
+        } else if (leftHeight < rightHeight) {
+            var inner = (Node) right;
+            var seam = join(left, leftHeight, inner.children[0], rightHeight - 1);
+            return packed(replaced(inner.children, 0, seam), rightHeight);
+        } else if (leftHeight == 0) {
+            var leftLeaf = (Object[]) left;
+            var rightLeaf = (Object[]) right;
+            if (leftLeaf.length + rightLeaf.length > WIDTH) {
+                return new Object[]{left, right};
+            }
+            var leaf = Arrays.copyOf(leftLeaf, leftLeaf.length + rightLeaf.length);
+            System.arraycopy(rightLeaf, 0, leaf, leftLeaf.length, rightLeaf.length);
+            return new Object[]{leaf};
+        }
+        var leftChildren = ((Node) left).children;
+        var rightChildren = ((Node) right).children;
+        var last = leftChildren.length - 1;
+        var seam = join(leftChildren[last], leftHeight - 1, rightChildren[0], rightHeight - 1);
+        var children = new Object[last + seam.length + rightChildren.length - 1];
+        System.arraycopy(leftChildren, 0, children, 0, last);
+        System.arraycopy(seam, 0, children, last, seam.length);
+        System.arraycopy(rightChildren, 1, children, last + seam.length, rightChildren.length - 1);
+        return packed(children, leftHeight);
+    }
+
+    // splits an overfull node evenly, so repeated inserts at one spot keep both halves usable
+    private static Object[] halves(Object[] items, int height) {
+        if (items.length <= WIDTH) {
+            return new Object[]{nodeOf(items, height)};
+        }
+        var half = items.length / 2;
+        return new Object[]{
+                nodeOf(Arrays.copyOf(items, half), height),
+                nodeOf(Arrays.copyOfRange(items, half, items.length), height)};
+    }
+
+    // splits an overfull node keeping the left one full, so appends build a dense tree
+    private static Object[] packed(Object[] items, int height) {
+        items = rebalanced(items, height);
+        if (items.length <= WIDTH) {
+            return new Object[]{nodeOf(items, height)};
+        }
+        return new Object[]{
+                nodeOf(Arrays.copyOf(items, WIDTH), height),
+                nodeOf(Arrays.copyOfRange(items, WIDTH, items.length), height)};
+    }
+
+    // the concat rebalancing of the RRB paper: items are the children of a node at height, once they are more than
+    // EXTRA_NODES beyond the fewest that could hold their own children, the thin ones are merged into their neighbours
+    // until they are not; without this a seam keeps gaining thin nodes and repeated concat grows the height linearly
+    private static Object[] rebalanced(Object[] items, int height) {
+        var sizes = new int[items.length];
+        var total = 0;
+        for (var idx = 0; idx < items.length; idx++) {
+            sizes[idx] = slotsOf(items[idx], height - 1);
+            total += sizes[idx];
+        }
+        var count = items.length;
+        var optimal = (total + WIDTH - 1) / WIDTH;
+        if (count <= optimal + EXTRA_NODES) {
+            return items;
+        }
+        var planned = sizes.clone();
+        var idx = 0;
+        while (count > optimal + EXTRA_NODES) {
+            while (planned[idx] >= WIDTH) {
+                idx++;
+            }
+            // shifts the slots after idx left until the node after the last one touched is empty, then drops it
+            var remaining = planned[idx];
+            do {
+                var filled = Math.min(remaining + planned[idx + 1], WIDTH);
+                remaining += planned[idx + 1] - filled;
+                planned[idx] = filled;
+                idx++;
+            } while (remaining > 0);
+            System.arraycopy(planned, idx + 1, planned, idx, count - idx - 1);
+            count--;
+            idx--;
+        }
+        var slots = new Object[total];
+        var offset = 0;
+        for (var item : items) {
+            var children = height == 1 ? (Object[]) item : ((Node) item).children;
+            System.arraycopy(children, 0, slots, offset, children.length);
+            offset += children.length;
+        }
+        // nodes the plan left as they were are reused, the others are rebuilt from the slots they now cover
+        var result = new Object[count];
+        var original = 0;
+        var originalStart = 0;
+        offset = 0;
+        for (var node = 0; node < count; node++) {
+            while (originalStart < offset) {
+                originalStart += sizes[original++];
+            }
+            var reused = originalStart == offset && sizes[original] == planned[node];
+            result[node] = reused ? items[original] : nodeOf(Arrays.copyOfRange(slots, offset, offset + planned[node]), height - 1);
+            offset += planned[node];
+        }
+        return result;
+    }
+
+    private static int slotsOf(Object node, int height) {
+        return height == 0 ? ((Object[]) node).length : ((Node) node).children.length;
+    }
+
+    private static Object nodeOf(Object[] items, int height) {
+        return height == 0 ? items : new Node(items, height);
+    }
+
+    private static Object[] inserted(Object[] items, int index, Object item) {
+        var result = new Object[items.length + 1];
+        System.arraycopy(items, 0, result, 0, index);
+        result[index] = item;
+        System.arraycopy(items, index, result, index + 1, items.length - index);
+        return result;
+    }
+
+    private static Object[] removed(Object[] items, int index) {
+        var result = new Object[items.length - 1];
+        System.arraycopy(items, 0, result, 0, index);
+        System.arraycopy(items, index + 1, result, index, result.length - index);
+        return result;
+    }
+
+    // items with the one at index replaced by all of with
+    private static Object[] replaced(Object[] items, int index, Object[] with) {
+        if (with.length == 1) {
+            var result = items.clone();
+            result[index] = with[0];
+            return result;
+        }
+        var result = new Object[items.length - 1 + with.length];
+        System.arraycopy(items, 0, result, 0, index);
+        System.arraycopy(with, 0, result, index, with.length);
+        System.arraycopy(items, index + 1, result, index + with.length, items.length - index - 1);
+        return result;
+    }
+
+    private static <T> void forEach(Object node, int height, Consumer<? super T> action) {
+        if (height > 0) {
+            for (var child : ((Node) node).children) {
+                forEach(child, height - 1, action);
+            }
+            return;
+        }
+        for (var item : (Object[]) node) {
+            @SuppressWarnings("unchecked")
+            var itCasted = (T) item;
+            action.accept(itCasted);
+        }
+    }
+
+    // returns the offset just past the copied elements
+    private static int copyInto(Object node, int height, Object[] dest, int offset) {
+        if (height > 0) {
+            for (var child : ((Node) node).children) {
+                offset = copyInto(child, height - 1, dest, offset);
+            }
+            return offset;
+        }
+        var leaf = (Object[]) node;
+        System.arraycopy(leaf, 0, dest, offset, leaf.length);
+        return offset + leaf.length;
+    }
+
+    private static final class Node {
+
+        final Object[] children;
+        // sizes[i] is the number of elements in children[0..i]
+        final int[] sizes;
+
+        Node(Object[] children, int[] sizes) {
+            this.children = children;
+            this.sizes = sizes;
+        }
+
+        Node(Object[] children, int height) {
+            this.children = children;
+            this.sizes = new int[children.length];
+            var total = 0;
+            for (var idx = 0; idx < children.length; idx++) {
+                var child = children[idx];
+                total += height == 1 ? ((Object[]) child).length : ((Node) child).size();
+                sizes[idx] = total;
+            }
+        }
+
+        int size() {
+            return sizes[sizes.length - 1];
+        }
+
+        int childIndexOf(int index) {
+            var found = Arrays.binarySearch(sizes, index);
+            return found >= 0 ? found + 1 : -(found + 1);
+        }
+
+        int startOf(int idx) {
+            return idx == 0 ? 0 : sizes[idx - 1];
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.varlanv;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// elements [from, to) of parent, read through the parent's chunks without copying them; a window that small
+// next to its parent is copied instead, so a view never keeps more than RETAIN_RATIO times what it exposes reachable
+final class SliceList<T> implements ImmutableList<T> {
+
+    private static final int RETAIN_RATIO = 8;
+
+    private final ImmutableList<T> parent;
+    private final int from;
+    private final int to;
+
+    private SliceList(ImmutableList<T> parent, int from, int to) {
+        this.parent = parent;
+        this.from = from;
+        this.to = to;
+    }
+
+    static <T> ImmutableList<T> of(ImmutableList<T> list, int from, int to) {
+        Objects.checkFromToIndex(from, to, list.size());
+        if (from == 0 && to == list.size()) {
+            return list;
+        }
+        var parent = list;
+        if (list instanceof SliceList<T> slice) {
+            parent = slice.parent;
+            from += slice.from;
+            to += slice.from;
+        }
+        if ((long) (to - from) * RETAIN_RATIO <= parent.size()) {
+            return copyOf(parent, from, to);
+        }
+        return new SliceList<>(parent, from, to);
+    }
+
+    private static <T> ImmutableList<T> copyOf(ImmutableList<T> parent, int from, int to) {
+        var count = to - from;
+        if (count <= 1) {
+            return count == 0 ? ImmutableList.empty() : ImmutableList.of(parent.get(from));
+        }
+        var items = new Object[count];
+        if (parent instanceof ImmutableListImpl<T> impl) {
+            var idx = new int[1];
+            impl.forEachInRange(from, to, item -> items[idx[0]++] = item);
+        } else {
+            for (var idx = 0; idx < count; idx++) {
+                items[idx] = parent.get(from + idx);
+            }
+        }
+        return ImmutableListImpl.adopt(items);
+    }
+
+    @Override
+    public ImmutableList<T> slice(int from, int to) {
+        return of(this, from, to);
+    }
+
+    @Override
+    public ImmutableList<T> compact() {
+        return copyOf(parent, from, to);
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        if (parent instanceof ImmutableListImpl<T> impl) {
+            impl.forEachInRange(from, to, action);
+        } else {
+            for (var idx = from; idx < to; idx++) {
+                action.accept(parent.get(idx));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, to - from);
+        return parent.get(from + index);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (parent instanceof ImmutableListImpl<T> impl) {
+            return impl.iterator(from, to);
+        }
+        return new InternalUtil.IndexedIterator<>(parent, from, to);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        if (parent instanceof ImmutableListImpl<T> impl) {
+            return impl.spliterator(from, to);
+        }
+        return new InternalUtil.IndexedSpliterator<>(parent, from, to);
+    }
+
+    ImmutableList<T> parent() {
+        return parent;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return InternalUtil.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return InternalUtil.hashCode(this);
+    }
+}
@@ -0,0 +1,125 @@
+package com.varlanv;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// lists of up to two elements held in fields, like List12 in java.util.ImmutableCollections, with the empty one shared;
+// growing past two moves to ImmutableListImpl
+final class SmallList<T> implements ImmutableList<T> {
+
+    static final int MAX_SIZE = 2;
+    // marks an unused field, null being a valid element
+    private static final Object NONE = new Object();
+    private static final SmallList<?> EMPTY = new SmallList<>(NONE, NONE);
+
+    private final Object first;
+    private final Object second;
+
+    private SmallList(Object first, Object second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    static <T> SmallList<T> empty() {
+        @SuppressWarnings("unchecked")
+        var empty = (SmallList<T>) EMPTY;
+        return empty;
+    }
+
+    static <T> SmallList<T> of(T item) {
+        return new SmallList<>(item, NONE);
+    }
+
+    static <T> SmallList<T> ofArray(Object[] items) {
+        return switch (items.length) {
+            case 0 -> empty();
+            case 1 -> new SmallList<>(items[0], NONE);
+            default -> new SmallList<>(items[0], items[1]);
+        };
+    }
+
+    @Override
+    public ImmutableList<T> add(T item) {
+        if (first == NONE) {
+            return new SmallList<>(item, NONE);
+        } else if (second == NONE) {
+            return new SmallList<>(first, item);
+        }
+        return ImmutableListImpl.ofElements(first, second, item);
+    }
+
+    @Override
+    public ImmutableList<T> addIterable(Iterable<T> items) {
+        return first == NONE ? ImmutableList.ofIterable(items) : grown().addIterable(items);
+    }
+
+    @Override
+    public ImmutableList<T> combine(ImmutableList<T> other) {
+        if (other.size() == 0) {
+            return this;
+        }
+        return first == NONE ? other : grown().combine(other);
+    }
+
+    @Override
+    public ImmutableList<T> withMutations(Consumer<MutableView<T>> mutations) {
+        var grown = grown();
+        var result = grown.withMutations(mutations);
+        return result == grown ? this : result;
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        if (first != NONE) {
+            action.accept(element(first));
+            if (second != NONE) {
+                action.accept(element(second));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return first == NONE ? 0 : second == NONE ? 1 : 2;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        return element(index == 0 ? first : second);
+    }
+
+    @Override
+    public void copyInto(T[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, size(), dest.length);
+        if (first != NONE) {
+            dest[offset] = element(first);
+            if (second != NONE) {
+                dest[offset + 1] = element(second);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return InternalUtil.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return InternalUtil.hashCode(this);
+    }
+
+    private ImmutableListImpl<T> grown() {
+        if (first == NONE) {
+            return ImmutableListImpl.ofElements();
+        }
+        return second == NONE ? ImmutableListImpl.ofElements(first) : ImmutableListImpl.ofElements(first, second);
+    }
+
+    private T element(Object item) {
+        @SuppressWarnings("unchecked")
+        var itCasted = (T) item;
+        return itCasted;
+    }
+}
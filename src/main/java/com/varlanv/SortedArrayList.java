@@ -0,0 +1,210 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+// one dense array; insertSorted and merge copy it, which keeps reads a plain array access
+final class SortedArrayList<T> implements SortedImmutableList<T> {
+
+    // below this Arrays.parallelSort would sort sequentially anyway
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    private final Object[] items;
+    private final Comparator<? super T> comparator;
+
+    private SortedArrayList(Object[] items, Comparator<? super T> comparator) {
+        this.items = items;
+        this.comparator = comparator;
+    }
+
+    // sorts items in place and takes ownership of them
+    static <T> SortedArrayList<T> sort(Object[] items, Comparator<? super T> comparator) {
+        Objects.requireNonNull(comparator, "comparator");
+        @SuppressWarnings("unchecked")
+        var itemsCasted = (T[]) items;
+        if (items.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(itemsCasted, comparator);
+        } else {
+            Arrays.sort(itemsCasted, comparator);
+        }
+        return new SortedArrayList<>(items, comparator);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public SortedImmutableList<T> sorted(Comparator<? super T> comparator) {
+        return comparator.equals(this.comparator) ? this : SortedImmutableList.super.sorted(comparator);
+    }
+
+    // binary search is as good as an index here, without the memory
+    @Override
+    public SortedArrayList<T> indexed() {
+        return this;
+    }
+
+    @Override
+    public boolean containsAll(Iterable<?> items) {
+        for (var item : items) {
+            if (!contains(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int binarySearch(T key) {
+        var idx = lowerBound(key);
+        return idx < items.length && compare(items[idx], key) == 0 ? idx : -idx - 1;
+    }
+
+    @Override
+    public SortedArrayList<T> insertSorted(T item) {
+        var idx = upperBound(item);
+        var newItems = new Object[items.length + 1];
+        System.arraycopy(items, 0, newItems, 0, idx);
+        newItems[idx] = item;
+        System.arraycopy(items, idx, newItems, idx + 1, items.length - idx);
+        return new SortedArrayList<>(newItems, comparator);
+    }
+
+    @Override
+    public SortedArrayList<T> merge(SortedImmutableList<T> other) {
+        var those = other instanceof SortedArrayList<T> that && comparator.equals(that.comparator)
+                ? that.items
+                : sort(other.toArray(), comparator).items;
+        if (those.length == 0) {
+            return this;
+        }
+        var merged = new Object[items.length + those.length];
+        int idx = 0, thatIdx = 0, mergedIdx = 0;
+        while (idx < items.length && thatIdx < those.length) {
+            merged[mergedIdx++] = compare(those[thatIdx], items[idx]) < 0 ? those[thatIdx++] : items[idx++];
+        }
+        System.arraycopy(items, idx, merged, mergedIdx, items.length - idx);
+        System.arraycopy(those, thatIdx, merged, mergedIdx + items.length - idx, those.length - thatIdx);
+        return new SortedArrayList<>(merged, comparator);
+    }
+
+    // equal elements are next to each other, only those comparing equal to item are checked with equals;
+    // an item the comparator cannot handle is not in the list
+    @Override
+    public int indexOf(Object item) {
+        try {
+            @SuppressWarnings("unchecked")
+            var itemCasted = (T) item;
+            for (var idx = lowerBound(itemCasted); idx < items.length && compare(items[idx], itemCasted) == 0; idx++) {
+                if (Objects.equals(item, items[idx])) {
+                    return idx;
+                }
+            }
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object item) {
+        try {
+            @SuppressWarnings("unchecked")
+            var itemCasted = (T) item;
+            for (var idx = upperBound(itemCasted) - 1; idx >= 0 && compare(items[idx], itemCasted) == 0; idx--) {
+                if (Objects.equals(item, items[idx])) {
+                    return idx;
+                }
+            }
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (var item : items) {
+            @SuppressWarnings("unchecked")
+            var itCasted = (T) item;
+            action.accept(itCasted);
+        }
+    }
+
+    @Override
+    public void forEachIndexed(ObjIntConsumer<? super T> action) {
+        for (var idx = 0; idx < items.length; idx++) {
+            @SuppressWarnings("unchecked")
+            var itCasted = (T) items[idx];
+            action.accept(itCasted, idx);
+        }
+    }
+
+    @Override
+    public int size() {
+        return items.length;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, items.length);
+        @SuppressWarnings("unchecked")
+        var itCasted = (T) items[index];
+        return itCasted;
+    }
+
+    @Override
+    public void copyInto(T[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, items.length, dest.length);
+        System.arraycopy(items, 0, dest, offset, items.length);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return InternalUtil.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return InternalUtil.hashCode(this);
+    }
+
+    // first index whose element does not compare below key
+    private int lowerBound(T key) {
+        int low = 0, high = items.length;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (compare(items[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // first index whose element compares above key
+    private int upperBound(T key) {
+        int low = 0, high = items.length;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (compare(items[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(Object left, Object right) {
+        @SuppressWarnings("unchecked")
+        var comparatorCasted = (Comparator<Object>) comparator;
+        return comparatorCasted.compare(left, right);
+    }
+}
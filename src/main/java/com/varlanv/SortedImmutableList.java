@@ -0,0 +1,20 @@
+package com.varlanv;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+// list kept in the order of its comparator, so lookups are binary searches;
+// versions derived with add, combine, map and the like are plain lists again, insertSorted and merge keep the order
+public interface SortedImmutableList<T> extends ImmutableList<T> {
+
+    Comparator<? super T> comparator();
+
+    // like Arrays.binarySearch, but the first of several elements comparing equal to key wins
+    int binarySearch(T key);
+
+    // after any elements comparing equal to item
+    SortedImmutableList<T> insertSorted(T item);
+
+    // ties keep this list's elements first
+    SortedImmutableList<T> merge(SortedImmutableList<T> other);
+}
@@ -1,5 +1,9 @@
 package com.varlanv;
 
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
@@ -12,6 +16,28 @@ public final class Bench {
         return new Bench();
     }
 
+    // whether allocation measured after warm-up reaches its steady state: C2 compiles the hot loops and escape analysis
+    // scalar-replaces what does not escape; not so with -Xint, a lowered TieredStopAtLevel or an instrumenting agent
+    public static boolean escapeAnalysisActive() {
+        var diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (diagnostics == null) {
+            return false;
+        }
+        for (var arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (arg.equals("-Xint") || arg.startsWith("-javaagent") || arg.startsWith("-agentlib") || arg.startsWith("-agentpath")) {
+                return false;
+            }
+        }
+        try {
+            return Boolean.parseBoolean(diagnostics.getVMOption("UseCompiler").getValue())
+                    && Boolean.parseBoolean(diagnostics.getVMOption("DoEscapeAnalysis").getValue())
+                    && Integer.parseInt(diagnostics.getVMOption("TieredStopAtLevel").getValue()) >= 4;
+        } catch (IllegalArgumentException e) {
+            // a VM without C2 has no DoEscapeAnalysis option
+            return false;
+        }
+    }
+
     public BenchWithOneSubject addSubject(ThrowingFunction<AddField, AddEnd> specAction) {
         return new BenchWithOneSubject(
                 Objects.requireNonNull(
@@ -60,6 +86,8 @@ public final class Bench {
 
     public static final class BenchWithManySubjects {
 
+        private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
         private final Map<String, Spec> subjects;
 
         BenchWithManySubjects(Map<String, Spec> subjects) {
@@ -75,8 +103,10 @@ public final class Bench {
             this(new LinkedHashMap<>());
         }
 
-        public BenchWithManySubjects addSubject(ThrowingFunction<AddField, Spec> specAction) {
-            Spec spec = specAction.toFunction().apply(new AddField());
+        public BenchWithManySubjects addSubject(ThrowingFunction<AddField, AddEnd> specAction) {
+            Spec spec = Objects.requireNonNull(
+                    specAction.toFunction().apply(new AddField()).spec
+            );
             if (subjects.containsKey(spec.name())) {
                 throw new IllegalArgumentException("Subject already exists: " + spec.name());
             }
@@ -123,12 +153,15 @@ public final class Bench {
                     double average = 0.0;
                     long min = -1;
                     long max = 0;
+                    long allocated = 0;
                     ThrowingRunnable action = spec.action();
                     ThrowingRunnable cleanup = spec.extended().cleanup;
                     for (long iteration = 0; iteration < spec.iterationCycles(); iteration++) {
+                        long bytesBefore = allocatedBytes();
                         long nanoBefore = System.nanoTime();
                         action.run();
                         long nanoAfter = System.nanoTime();
+                        allocated += allocatedBytes() - bytesBefore;
                         average += (nanoAfter - nanoBefore);
                         min = min == -1 ? nanoAfter - nanoBefore : Math.min(min, nanoAfter - nanoBefore);
                         max = Math.max(max, nanoAfter - nanoBefore);
@@ -139,7 +172,8 @@ public final class Bench {
                             new Result(
                                     BigDecimal.valueOf(average / spec.iterationCycles() - averageNanoTime).setScale(2, RoundingMode.HALF_UP),
                                     min,
-                                    max
+                                    max,
+                                    spec.iterationCycles() == 0 ? 0 : allocated / spec.iterationCycles()
                             ));
                 }
             } catch (Throwable e) {
@@ -151,6 +185,14 @@ public final class Bench {
         public void runAndPrintResult() {
             run().forEach((name, result) -> System.out.println(name + ": " + result));
         }
+
+        // bytes allocated so far by the current thread, or 0 when the JVM cannot tell
+        private static long allocatedBytes() {
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean threadMXBean) {
+                return threadMXBean.getCurrentThreadAllocatedBytes();
+            }
+            return 0;
+        }
     }
 
     public interface Spec {
@@ -294,11 +336,13 @@ public final class Bench {
         private final BigDecimal average;
         private final long min;
         private final long max;
+        private final long allocatedBytes;
 
-        public Result(BigDecimal average, long min, long max) {
+        public Result(BigDecimal average, long min, long max, long allocatedBytes) {
             this.average = average;
             this.min = min;
             this.max = max;
+            this.allocatedBytes = allocatedBytes;
         }
 
         public BigDecimal average() {
@@ -313,10 +357,14 @@ public final class Bench {
             return max;
         }
 
+        public long allocatedBytes() {
+            return allocatedBytes;
+        }
+
         @Override
         public String toString() {
-            return String.format("average -> %s, min -> %s, max -> %s",
-                    formatTime(average), formatTime(BigDecimal.valueOf(min)), formatTime(BigDecimal.valueOf(max)));
+            return String.format("average -> %s, min -> %s, max -> %s, allocated -> %sB",
+                    formatTime(average), formatTime(BigDecimal.valueOf(min)), formatTime(BigDecimal.valueOf(max)), allocatedBytes);
         }
 
         private String formatTime(BigDecimal average) {
@@ -341,12 +389,13 @@ public final class Bench {
                 return false;
             }
             Result result = (Result) o;
-            return min == result.min && max == result.max && Objects.equals(average, result.average);
+            return min == result.min && max == result.max && allocatedBytes == result.allocatedBytes
+                    && Objects.equals(average, result.average);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(average, min, max);
+            return Objects.hash(average, min, max, allocatedBytes);
         }
     }
 
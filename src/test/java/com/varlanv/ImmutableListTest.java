@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.ObjIntConsumer;
 import java.util.function.Supplier;
@@ -213,6 +214,772 @@ class ImmutableListTest {
         Assertions.assertEquals(11, actual);
     }
 
+    @Test
+    void add_twice_to_same_version__should_not_see_each_other() {
+        var base = ImmutableList.<Integer>empty().add(1).add(2);
+        var left = base.add(3);
+        var right = base.add(4);
+
+        Assertions.assertEquals(List.of(1, 2), base.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3), left.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 4), right.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3, 5), left.add(5).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 4, 6), right.add(6).copyTo(ArrayList::new));
+    }
+
+    @Test
+    void add_100_000__should_contain_all_in_order() {
+        var subject = ImmutableList.<Integer>empty();
+        for (var i = 0; i < 100_000; i++) {
+            subject = subject.add(i);
+        }
+
+        var actual = subject.copyTo(ArrayList::new);
+        Assertions.assertEquals(100_000, subject.size());
+        Assertions.assertEquals(IntStream.range(0, 100_000).boxed().toList(), actual);
+    }
+
+    @Test
+    void add_iterable_as_element__size_should_count_it_once() {
+        var subject = ImmutableList.<List<Integer>>empty()
+                .add(List.of(1, 2, 3))
+                .add(List.of())
+                .addIterable(List.of(List.of(4, 5)));
+
+        Assertions.assertEquals(3, subject.size());
+        Assertions.assertEquals(List.of(List.of(1, 2, 3), List.of(), List.of(4, 5)), subject.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void add_iterable_of_0_and_1__size_should_count_elements() {
+        var subject = ImmutableList.ofIterable(List.of(1, 2))
+                .addIterable(List.of())
+                .addIterable(List.of(3))
+                .addIterable(() -> IntStream.range(4, 10).iterator());
+
+        Assertions.assertEquals(9, subject.size());
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), subject.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void get__should_index_across_chunks() {
+        var subject = ImmutableList.of(0)
+                .addIterable(List.of(1, 2, 3))
+                .add(4)
+                .addIterable(new LinkedList<>(List.of(5, 6)))
+                .addIterable(() -> IntStream.range(7, 10).iterator());
+
+        for (var i = 0; i < 10; i++) {
+            Assertions.assertEquals(i, subject.get(i));
+        }
+        Assertions.assertEquals(0, subject.getFirst());
+        Assertions.assertEquals(9, subject.getLast());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> subject.get(10));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> subject.get(-1));
+    }
+
+    @Test
+    void getFirst__of_empty__should_throw() {
+        Assertions.assertThrows(NoSuchElementException.class, () -> ImmutableList.empty().getFirst());
+        Assertions.assertThrows(NoSuchElementException.class, () -> ImmutableList.empty().getLast());
+    }
+
+    @Test
+    void indexOf_and_lastIndexOf__should_search_all_chunks() {
+        var subject = ImmutableList.of(1)
+                .addIterable(List.of(2, 3, 1))
+                .add(2)
+                .addIterable(() -> List.of(3, 4).iterator());
+
+        Assertions.assertEquals(0, subject.indexOf(1));
+        Assertions.assertEquals(3, subject.lastIndexOf(1));
+        Assertions.assertEquals(1, subject.indexOf(2));
+        Assertions.assertEquals(4, subject.lastIndexOf(2));
+        Assertions.assertEquals(2, subject.indexOf(3));
+        Assertions.assertEquals(5, subject.lastIndexOf(3));
+        Assertions.assertEquals(6, subject.indexOf(4));
+        Assertions.assertEquals(-1, subject.indexOf(5));
+        Assertions.assertEquals(-1, subject.lastIndexOf(null));
+    }
+
+    @Test
+    void combine__should_contain_both_in_order() {
+        var left = ImmutableList.of(1).addIterable(List.of(2, 3));
+        var right = ImmutableList.of(4).add(5).addIterable(List.of(6, 7));
+
+        var actual = left.combine(right);
+
+        Assertions.assertEquals(7, actual.size());
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3), left.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(4, 5, 6, 7), right.copyTo(ArrayList::new));
+        Assertions.assertEquals(5, actual.get(4));
+        Assertions.assertEquals(5, actual.indexOf(6));
+    }
+
+    @Test
+    void combine__with_empty__should_keep_elements() {
+        var list = ImmutableList.of(1).add(2);
+
+        Assertions.assertEquals(List.of(1, 2), list.combine(ImmutableList.empty()).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2), ImmutableList.<Integer>empty().combine(list).copyTo(ArrayList::new));
+    }
+
+    @Test
+    void combine__many_chunks_nested_deeply__should_contain_all_in_order() {
+        var expected = new ArrayList<Integer>();
+        var acc = ImmutableList.<Integer>empty();
+        for (var i = 999; i >= 0; i--) {
+            var part = ImmutableList.<Integer>empty();
+            for (var j = 0; j < 10; j++) {
+                part = part.add(i * 10 + j);
+            }
+            acc = part.combine(acc);
+        }
+        for (var i = 0; i < 10_000; i++) {
+            expected.add(i);
+        }
+
+        Assertions.assertEquals(10_000, acc.size());
+        Assertions.assertEquals(expected, acc.copyTo(ArrayList::new));
+        Assertions.assertEquals(1234, acc.get(1234));
+        Assertions.assertEquals(9999, acc.lastIndexOf(9999));
+    }
+
+    @Test
+    void stream__should_contain_all_in_order() {
+        var subject = ImmutableList.of(1)
+                .addIterable(List.of(2, 3))
+                .addIterable(() -> List.of(4, 5).iterator())
+                .combine(ImmutableList.of(6).add(7));
+
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), subject.stream().toList());
+        Assertions.assertEquals(List.of(2, 4, 6), subject.stream().filter(it -> it % 2 == 0).toList());
+        Assertions.assertEquals(List.of(), ImmutableList.empty().stream().toList());
+    }
+
+    @Test
+    void parallelStream__should_contain_all_in_order() {
+        var expected = IntStream.range(0, 200_000).boxed().toList();
+        var subject = ImmutableList.<Integer>empty();
+        for (var i = 0; i < 100; i++) {
+            subject = subject.add(i);
+        }
+        subject = subject.addIterable(expected.subList(100, 150_000))
+                .addIterable(new LinkedList<>(expected.subList(150_000, 160_000)))
+                .combine(ImmutableList.ofIterable(expected.subList(160_000, 200_000)));
+
+        Assertions.assertEquals(expected, subject.parallelStream().toList());
+        Assertions.assertEquals(expected.stream().mapToLong(it -> it).sum(), subject.parallelStream().mapToLong(it -> it).sum());
+    }
+
+    @Test
+    void spliterator__should_be_sized_and_split_inside_large_chunk() {
+        var spliterator = ImmutableList.ofIterable(IntStream.range(0, 1000).boxed().toList()).spliterator();
+
+        Assertions.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Assertions.assertEquals(1000, spliterator.getExactSizeIfKnown());
+        var prefix = spliterator.trySplit();
+        Assertions.assertNotNull(prefix);
+        Assertions.assertEquals(500, prefix.getExactSizeIfKnown());
+        Assertions.assertEquals(500, spliterator.getExactSizeIfKnown());
+        var first = new ArrayList<Integer>();
+        Assertions.assertTrue(spliterator.tryAdvance(first::add));
+        spliterator.forEachRemaining(first::add);
+        Assertions.assertEquals(IntStream.range(500, 1000).boxed().toList(), first);
+    }
+
+    @Test
+    void ofIterable_and_addIterable__should_snapshot_source() {
+        var source = new ArrayList<>(List.of(1, 2, 3));
+        var subject = ImmutableList.ofIterable(source).addIterable(source);
+
+        source.add(4);
+        source.set(0, 10);
+
+        Assertions.assertEquals(6, subject.size());
+        Assertions.assertEquals(List.of(1, 2, 3, 1, 2, 3), subject.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void addIterable__lazy_source__should_be_iterated_once() {
+        var iterations = new AtomicInteger();
+        Iterable<Integer> lazy = () -> {
+            iterations.incrementAndGet();
+            return IntStream.range(0, 5).iterator();
+        };
+        var subject = ImmutableList.of(-1).addIterable(lazy);
+
+        subject.forEach(it -> {
+        });
+        subject.size();
+        subject.get(3);
+
+        Assertions.assertEquals(1, iterations.get());
+        Assertions.assertEquals(List.of(-1, 0, 1, 2, 3, 4), subject.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void ofArray__should_copy_and_adoptArray__should_not() {
+        var array = new Integer[]{1, 2, 3};
+        var copied = ImmutableList.ofArray(array);
+        var adopted = ImmutableList.adoptArray(array);
+
+        // breaks adoptArray's contract on purpose, only to show the array is read in place
+        array[0] = 10;
+
+        Assertions.assertEquals(List.of(1, 2, 3), copied.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(10, 2, 3), adopted.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void viewOf__should_contain_all() {
+        var subject = ImmutableList.viewOf(List.of(1, 2, 3)).add(4);
+
+        Assertions.assertEquals(4, subject.size());
+        Assertions.assertEquals(List.of(1, 2, 3, 4), subject.copyTo(ArrayList::new));
+        Assertions.assertEquals(2, subject.indexOf(3));
+    }
+
+    @Test
+    void compact__should_keep_elements_in_order() {
+        var subject = ImmutableList.of(0);
+        var expected = new ArrayList<>(List.of(0));
+        for (var i = 1; i < 1000; i++) {
+            if (i % 100 == 0) {
+                var chunk = IntStream.range(i * 1000, i * 1000 + 50).boxed().toList();
+                subject = subject.addIterable(chunk);
+                expected.addAll(chunk);
+            } else {
+                subject = subject.add(i);
+                expected.add(i);
+            }
+        }
+        subject = subject.combine(ImmutableList.of(-1).add(-2).add(-3));
+        expected.addAll(List.of(-1, -2, -3));
+
+        var compacted = subject.compact();
+
+        Assertions.assertEquals(expected.size(), compacted.size());
+        Assertions.assertEquals(expected, compacted.copyTo(ArrayList::new));
+        Assertions.assertEquals(expected, subject.copyTo(ArrayList::new));
+        Assertions.assertEquals(expected.get(500), compacted.get(500));
+        Assertions.assertEquals(List.of(0, 1, 2, 3), compacted.add(3).compact().stream().limit(4).toList());
+    }
+
+    @Test
+    void long_add_addIterable_and_combine_chains__should_keep_chunk_count_bounded() {
+        var expected = IntStream.range(0, 120_000).boxed().toList();
+        var added = ImmutableList.<Integer>empty();
+        var maxChunks = 0;
+        for (var i : expected) {
+            added = added.add(i);
+            maxChunks = Math.max(maxChunks, ImmutableLists.stats(added).chunkCount());
+        }
+        var byFour = ImmutableList.<Integer>empty();
+        var byEight = ImmutableList.<Integer>empty();
+        var byForty = ImmutableList.<Integer>empty();
+        var combined = ImmutableList.<Integer>empty();
+        for (var i = 0; i < expected.size(); i += 120) {
+            for (var j = i; j < i + 120; j += 4) {
+                byFour = byFour.addIterable(expected.subList(j, j + 4));
+            }
+            for (var j = i; j < i + 120; j += 8) {
+                byEight = byEight.addIterable(expected.subList(j, j + 8));
+            }
+            for (var j = i; j < i + 120; j += 40) {
+                byForty = byForty.addIterable(expected.subList(j, j + 40));
+            }
+            for (var j = i; j < i + 120; j += 3) {
+                combined = combined.combine(ImmutableList.ofAll(j, j + 1, j + 2));
+            }
+        }
+
+        // thousands of chunks each without compaction; a few dozen once chunk sizes double towards the front
+        Assertions.assertTrue(maxChunks <= 128, "max chunks while adding: " + maxChunks);
+        for (var subject : List.of(added, byFour, byEight, byForty, combined)) {
+            Assertions.assertTrue(ImmutableLists.stats(subject).chunkCount() <= 128, "chunks: " + ImmutableLists.stats(subject).chunkCount());
+            Assertions.assertEquals(expected, subject.copyTo(ArrayList::new));
+        }
+    }
+
+    @Test
+    void builder__should_contain_all_in_order() {
+        var builder = ImmutableList.<Integer>builder();
+        for (var i = 0; i < 1000; i++) {
+            builder.add(i);
+        }
+        builder.addAll(IntStream.range(1000, 1010).boxed().toList())
+                .addAll(() -> IntStream.range(1010, 1020).iterator())
+                .addAll(ImmutableList.of(1020).addIterable(List.of(1021, 1022)));
+
+        var actual = builder.build();
+
+        Assertions.assertEquals(1023, builder.size());
+        Assertions.assertEquals(1023, actual.size());
+        Assertions.assertEquals(IntStream.range(0, 1023).boxed().toList(), actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(1015, actual.get(1015));
+    }
+
+    @Test
+    void builder__used_after_build__should_not_change_built_list() {
+        var builder = ImmutableList.<Integer>builder(2).add(1).add(2);
+        var first = builder.build();
+        var firstAdded = first.add(3);
+
+        var second = builder.add(4).build();
+        var secondAdded = second.add(5);
+
+        Assertions.assertSame(second, builder.build());
+        Assertions.assertEquals(List.of(1, 2), first.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3), firstAdded.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 4), second.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 4, 5), secondAdded.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void builder__empty__should_build_empty() {
+        var actual = ImmutableList.<Integer>builder().build();
+
+        Assertions.assertEquals(0, actual.size());
+        Assertions.assertEquals(List.of(7), actual.add(7).copyTo(ArrayList::new));
+    }
+
+    @Test
+    void toImmutableList__from_parallel_stream__should_contain_all_in_order() {
+        var expected = IntStream.range(0, 1_000_000).boxed().toList();
+
+        var actual = expected.parallelStream()
+                .map(it -> it)
+                .collect(ImmutableList.toImmutableList());
+
+        Assertions.assertEquals(1_000_000, actual.size());
+        Assertions.assertEquals(expected, actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(777_777, actual.get(777_777));
+    }
+
+    @Test
+    void toImmutableList__presized__should_contain_all_in_order() {
+        var actual = IntStream.range(0, 100).boxed().collect(ImmutableList.toImmutableList(100));
+
+        Assertions.assertEquals(IntStream.range(0, 100).boxed().toList(), actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(0, 1), actual.stream().limit(2).toList());
+    }
+
+    @Test
+    void toImmutableList__presized_parallel__should_not_reserve_the_hint_per_leaf() {
+        var size = 1_000_000;
+        var actual = IntStream.range(0, size).boxed().parallel().collect(ImmutableList.toImmutableList(size));
+
+        Assertions.assertEquals(size, actual.size());
+        Assertions.assertEquals(777_777, actual.get(777_777));
+        // every leaf used to start with a buffer of the whole hint
+        Assertions.assertTrue(ImmutableLists.stats(actual).retainedBytes() < 2L * size * ListStats.REFERENCE_BYTES);
+    }
+
+    @Test
+    void withMutations__should_publish_all_edits_and_leave_source_untouched() {
+        var source = ImmutableList.ofAll(1, 2, 3).addIterable(List.of(4, 5)).add(6).combine(ImmutableList.viewOf(List.of(7, 8)));
+
+        var actual = source.withMutations(view -> {
+            view.set(0, -1).set(3, -4).set(7, -8);
+            view.removeLast();
+            for (var i = 100; i < 150; i++) {
+                view.add(i);
+            }
+            view.set(view.size() - 1, -149).addAll(List.of(200, 201));
+            view.removeLast().removeLast().removeLast();
+            Assertions.assertEquals(-4, view.get(3));
+        });
+
+        var expected = new ArrayList<>(List.of(-1, 2, 3, -4, 5, 6, 7));
+        IntStream.range(100, 149).forEach(expected::add);
+        Assertions.assertEquals(expected, actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), source.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), source.add(9).copyTo(ArrayList::new));
+        Assertions.assertEquals(-1, actual.add(9).getFirst());
+    }
+
+    @Test
+    void withMutations__removing_through_shared_chunks__should_shrink_them() {
+        var source = ImmutableList.ofAll(1, 2, 3).combine(ImmutableList.viewOf(List.of(4, 5, 6)));
+
+        var actual = source.withMutations(view -> {
+            while (view.size() > 1) {
+                view.removeLast();
+            }
+        });
+
+        Assertions.assertEquals(List.of(1), actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6), source.copyTo(ArrayList::new));
+        Assertions.assertThrows(NoSuchElementException.class,
+                () -> ImmutableList.<Integer>empty().withMutations(ImmutableList.MutableView::removeLast));
+    }
+
+    @Test
+    void withMutations__without_edits__should_return_source() {
+        var source = ImmutableList.ofAll(1, 2, 3);
+
+        Assertions.assertSame(source, source.withMutations(view -> view.get(0)));
+    }
+
+    @Test
+    void withMutations__view_used_after_callback_or_from_other_thread__should_fail() {
+        var escaped = new ArrayList<ImmutableList.MutableView<Integer>>();
+        ImmutableList.ofAll(1, 2).withMutations(view -> {
+            escaped.add(view);
+            var other = Executors.newSingleThreadExecutor();
+            try {
+                var failure = other.submit(() -> view.add(3));
+                Assertions.assertThrows(ExecutionException.class, failure::get);
+            } finally {
+                other.shutdownNow();
+            }
+        });
+
+        var view = escaped.get(0);
+        Assertions.assertThrows(IllegalStateException.class, () -> view.add(3));
+        Assertions.assertThrows(IllegalStateException.class, view::size);
+    }
+
+    @Test
+    void map_filter_flatMap_takeWhile_distinct__should_fuse_into_one_lazy_pass() {
+        var source = ImmutableList.ofAll(1, 2, 3).addIterable(List.of(4, 5, 6, 7, 8)).add(9);
+        var calls = new AtomicInteger();
+
+        var actual = source
+                .map(it -> {
+                    calls.incrementAndGet();
+                    return it * 10;
+                })
+                .filter(it -> it % 20 != 0)
+                .flatMap(it -> List.of(it, it + 1))
+                .distinct()
+                .takeWhile(it -> it < 70);
+
+        Assertions.assertEquals(0, calls.get());
+        Assertions.assertEquals(List.of(10, 11, 30, 31, 50, 51), actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(7, calls.get());
+        Assertions.assertEquals(6, actual.size());
+        Assertions.assertEquals(51, actual.getLast());
+        Assertions.assertEquals(List.of(11, 31, 51), actual.stream().filter(it -> it % 2 == 1).toList());
+        Assertions.assertEquals(List.of(10, 11, 30, 31, 50, 51), actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(14, calls.get());
+    }
+
+    @Test
+    void map__should_keep_size_and_indexes_without_materializing() {
+        var calls = new AtomicInteger();
+        var actual = ImmutableList.ofIterable(IntStream.range(0, 1_000).boxed().toList())
+                .map(it -> {
+                    calls.incrementAndGet();
+                    return "" + it;
+                })
+                .map(String::length);
+
+        Assertions.assertEquals(1_000, actual.size());
+        Assertions.assertEquals(3, actual.get(500));
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    void force_and_materialize__should_evaluate_once() {
+        var calls = new AtomicInteger();
+        var view = ImmutableList.ofAll(3, 1, 3, 2, 1).distinct().map(it -> {
+            calls.incrementAndGet();
+            return it + 1;
+        });
+
+        var forced = view.force();
+        var materialized = view.materialize();
+
+        Assertions.assertSame(view, forced);
+        Assertions.assertEquals(List.of(4, 2, 3), materialized.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(4, 2, 3), view.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(4, 2, 3, 5), view.add(5).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(4), view.filter(it -> it > 3).copyTo(ArrayList::new));
+        Assertions.assertEquals(3, calls.get());
+        Assertions.assertSame(materialized, view.materialize());
+    }
+
+    @Test
+    void takeWhile__nested_in_other_traversal__should_only_stop_its_own() {
+        var actual = ImmutableList.ofAll(1, 2, 3)
+                .flatMap(it -> ImmutableList.ofAll(it, it, 0, it).takeWhile(item -> item > 0).copyTo(ArrayList::new))
+                .takeWhile(it -> it < 3);
+
+        Assertions.assertEquals(List.of(1, 1, 2, 2), actual.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void slice__should_expose_window_across_chunks() {
+        var source = ImmutableList.ofAll(0, 1, 2).addIterable(List.of(3, 4, 5, 6)).add(7).combine(ImmutableList.viewOf(List.of(8, 9)));
+
+        var actual = source.slice(2, 9);
+
+        Assertions.assertEquals(7, actual.size());
+        Assertions.assertEquals(List.of(2, 3, 4, 5, 6, 7, 8), actual.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(2, 3, 4, 5, 6, 7, 8), actual.stream().toList());
+        Assertions.assertEquals(List.of(2, 3, 4, 5, 6, 7, 8), actual.parallelStream().toList());
+        Assertions.assertEquals(5, actual.get(3));
+        Assertions.assertEquals(List.of(3, 4, 5, 6, 7), actual.slice(1, 6).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(2, 3, 4, 5, 6, 7, 8, 42), actual.add(42).copyTo(ArrayList::new));
+        Assertions.assertSame(source, source.slice(0, 10));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> actual.get(7));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> source.slice(3, 11));
+    }
+
+    @Test
+    void take_drop_takeRight_dropRight__should_clamp_counts() {
+        var source = ImmutableList.ofIterable(IntStream.range(0, 10).boxed().toList());
+
+        Assertions.assertEquals(List.of(0, 1, 2), source.take(3).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(7, 8, 9), source.drop(7).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(8, 9), source.takeRight(2).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), source.dropRight(2).copyTo(ArrayList::new));
+        Assertions.assertSame(source, source.take(20));
+        Assertions.assertSame(source, source.drop(-1));
+        Assertions.assertEquals(0, source.takeRight(-1).size());
+        Assertions.assertEquals(0, source.dropRight(20).size());
+    }
+
+    @Test
+    void slice__far_smaller_than_parent__should_copy_instead_of_retaining_it() {
+        var source = ImmutableList.ofIterable(IntStream.range(0, 1_000).boxed().toList());
+
+        var wide = source.slice(100, 900);
+        var narrow = wide.slice(0, 100);
+
+        Assertions.assertEquals("SliceList", wide.getClass().getSimpleName());
+        Assertions.assertEquals("ImmutableListImpl", narrow.getClass().getSimpleName());
+        Assertions.assertEquals(IntStream.range(100, 200).boxed().toList(), narrow.copyTo(ArrayList::new));
+        Assertions.assertEquals(IntStream.range(100, 900).boxed().toList(), wide.compact().copyTo(ArrayList::new));
+    }
+
+    @Test
+    void iterator__should_walk_every_kind_of_chunk() {
+        var nested = ImmutableList.ofAll(5, 6).add(7);
+        var source = ImmutableList.ofAll(1, 2)
+                .add(3)
+                .combine(ImmutableList.viewOf(new LinkedList<>(List.of(4, 40))))
+                .combine(ImmutableList.ofAll(0).combine(nested))
+                .combine(ImmutableVector.ofAll(8, 9));
+
+        var actual = new ArrayList<Integer>();
+        for (var item : source) {
+            actual.add(item);
+        }
+        var sliced = new ArrayList<Integer>();
+        source.slice(3, 9).iterator().forEachRemaining(sliced::add);
+
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 40, 0, 5, 6, 7, 8, 9), actual);
+        Assertions.assertEquals(List.of(4, 40, 0, 5, 6, 7), sliced);
+        Assertions.assertThrows(NoSuchElementException.class, () -> ImmutableList.empty().iterator().next());
+    }
+
+    @Test
+    void asList__should_behave_as_unmodifiable_list_without_copying() {
+        var source = ImmutableList.ofAll(1, 2, 3).addIterable(List.of(4, 5)).add(6);
+        var expected = List.of(1, 2, 3, 4, 5, 6);
+
+        var actual = source.asList();
+
+        Assertions.assertTrue(actual instanceof RandomAccess);
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(actual, expected);
+        Assertions.assertEquals(expected.hashCode(), actual.hashCode());
+        Assertions.assertNotEquals(List.of(1, 2, 3, 4, 5), actual);
+        Assertions.assertNotEquals(List.of(1, 2, 3, 4, 5, 7), actual);
+        Assertions.assertEquals(3, Collections.binarySearch(actual, 4));
+        Assertions.assertTrue(actual.containsAll(List.of(6, 1)));
+        Assertions.assertTrue(actual.containsAll(Collections.nCopies(12, 3)));
+        Assertions.assertFalse(actual.containsAll(IntStream.range(0, 20).boxed().toList()));
+        Assertions.assertArrayEquals(new Integer[]{1, 2, 3, 4, 5, 6}, actual.toArray(new Integer[0]));
+        Assertions.assertArrayEquals(new Object[]{1, 2, 3, 4, 5, 6}, actual.toArray());
+        Assertions.assertEquals(List.of(3, 4), actual.subList(2, 4));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> actual.add(7));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> actual.set(0, 7));
+    }
+
+    @Test
+    void asList__over_linked_chunk__should_not_claim_random_access() {
+        var actual = ImmutableList.ofAll(1, 2).combine(ImmutableList.viewOf(new LinkedList<>(List.of(3, 4)))).asList();
+
+        Assertions.assertFalse(actual instanceof RandomAccess);
+        Assertions.assertEquals(List.of(1, 2, 3, 4), actual);
+    }
+
+    @Test
+    void equals_and_hashCode__should_compare_values_and_hash_like_list() {
+        var base = ImmutableList.ofAll(1, 2, 3).addIterable(List.of(4, 5));
+        var left = base.add(6).add(7);
+        var right = base.add(6).add(7);
+        var rebuilt = ImmutableList.ofIterable(List.of(1, 2, 3, 4, 5, 6, 7));
+        var expected = List.of(1, 2, 3, 4, 5, 6, 7);
+
+        Assertions.assertEquals(left, right);
+        Assertions.assertEquals(left, rebuilt);
+        Assertions.assertEquals(rebuilt, left);
+        Assertions.assertNotEquals(left, base.add(6).add(8));
+        Assertions.assertNotEquals(left, base.add(6));
+        Assertions.assertNotEquals(left, expected);
+        Assertions.assertEquals(expected.hashCode(), left.hashCode());
+        Assertions.assertEquals(expected.hashCode(), rebuilt.hashCode());
+        Assertions.assertEquals(expected.hashCode(), ImmutableList.ofAll(1, 2).combine(ImmutableList.ofAll(3, 4, 5)).addIterable(List.of(6, 7)).hashCode());
+        Assertions.assertEquals(List.of().hashCode(), ImmutableList.empty().hashCode());
+        Assertions.assertEquals(ImmutableList.empty(), ImmutableList.empty().add(1).slice(1, 1));
+    }
+
+    @Test
+    void equals__across_implementations__should_be_symmetric() {
+        var expected = ImmutableList.ofIterable(IntStream.range(0, 100).boxed().toList());
+        var vector = ImmutableVector.ofIterable(IntStream.range(0, 100).boxed().toList());
+        var slice = ImmutableList.ofIterable(IntStream.range(-10, 110).boxed().toList()).slice(10, 110);
+        var mapped = ImmutableList.ofIterable(IntStream.range(0, 100).boxed().toList()).map(item -> item);
+
+        for (var other : List.<ImmutableList<Integer>>of(vector, slice, mapped)) {
+            Assertions.assertEquals(expected, other);
+            Assertions.assertEquals(other, expected);
+            Assertions.assertEquals(expected.hashCode(), other.hashCode());
+        }
+        Assertions.assertNotEquals(expected, vector.set(50, -1));
+        Assertions.assertNotEquals(vector.set(50, -1), expected);
+    }
+
+    @Test
+    void toArray_and_copyInto__should_copy_every_chunk_kind() {
+        var subject = ImmutableList.of(1)
+                .addIterable(List.of(2, 3))
+                .combine(ImmutableList.ofAll(4, 5))
+                .addIterable(new LinkedList<>(List.of(6, 7)))
+                .combine(ImmutableVector.ofAll(8, 9))
+                .add(10);
+        var expected = new Integer[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        var dest = new Integer[12];
+        subject.copyInto(dest, 1);
+
+        Assertions.assertArrayEquals(expected, subject.toArray(Integer[]::new));
+        Assertions.assertArrayEquals(expected, subject.toArray());
+        Assertions.assertArrayEquals(new Integer[]{null, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, null}, dest);
+        Assertions.assertArrayEquals(expected, ImmutableVector.ofAll(expected).toArray(Integer[]::new));
+        Assertions.assertArrayEquals(new Integer[]{2, 4}, subject.filter(item -> item % 2 == 0).take(2).toArray(Integer[]::new));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> subject.copyInto(new Integer[10], 1));
+    }
+
+    @Test
+    void copyTo__should_fill_any_collection_in_order() {
+        var subject = ImmutableList.ofAll(1, 2, 3).addIterable(List.of(4, 5)).add(6);
+        var expected = List.of(1, 2, 3, 4, 5, 6);
+
+        List<Integer> arrayList = subject.copyTo(ArrayList::new);
+        List<Integer> linkedList = subject.copyTo(LinkedList::new);
+        var deque = subject.copyTo(ArrayDeque::new);
+
+        Assertions.assertEquals(expected, arrayList);
+        Assertions.assertEquals(expected, linkedList);
+        Assertions.assertEquals(expected, new ArrayList<>(deque));
+    }
+
+    @Test
+    void indexed__should_find_first_positions_like_a_scan() {
+        var items = new ArrayList<Integer>();
+        for (var idx = 0; idx < 1_000; idx++) {
+            items.add(idx % 300);
+        }
+        items.add(null);
+        var subject = ImmutableList.ofIterable(items.subList(0, 500)).addIterable(items.subList(500, 1_001)).indexed();
+
+        for (var item : List.of(0, 150, 299)) {
+            Assertions.assertEquals(items.indexOf(item), subject.indexOf(item));
+        }
+        Assertions.assertEquals(1_000, subject.indexOf(null));
+        Assertions.assertEquals(-1, subject.indexOf(300));
+        Assertions.assertEquals(-1, subject.indexOf("0"));
+        Assertions.assertTrue(subject.contains(42));
+        Assertions.assertTrue(subject.containsAll(IntStream.range(0, 300).boxed().toList()));
+        Assertions.assertFalse(subject.containsAll(IntStream.range(0, 301).boxed().toList()));
+        Assertions.assertTrue(subject.asList().containsAll(List.of(1, 2, 3)));
+    }
+
+    @Test
+    void indexed__versions_derived_with_add__should_each_see_only_their_own_elements() {
+        var base = ImmutableList.ofAll(1, 2, 3).indexed();
+        Assertions.assertEquals(2, base.indexOf(3));
+
+        var inPlace = base.add(4);
+        var copied = base.add(5);
+        var grown = inPlace;
+        for (var idx = 100; idx < 200; idx++) {
+            grown = grown.add(idx);
+        }
+
+        Assertions.assertEquals(3, inPlace.indexOf(4));
+        Assertions.assertEquals(-1, inPlace.indexOf(5));
+        Assertions.assertEquals(3, copied.indexOf(5));
+        Assertions.assertEquals(-1, copied.indexOf(4));
+        Assertions.assertEquals(-1, base.indexOf(4));
+        Assertions.assertEquals(-1, base.indexOf(5));
+        Assertions.assertEquals(103, grown.indexOf(199));
+        Assertions.assertEquals(3, grown.indexOf(4));
+        Assertions.assertEquals(-1, inPlace.indexOf(150));
+        Assertions.assertEquals(4, ImmutableVector.ofAll(1, 2, 3).indexed().add(4).add(5).indexOf(5));
+        for (var idx = 0; idx < 1_000; idx++) {
+            grown = grown.add(1_000 + idx % 500);
+            Assertions.assertEquals(104 + idx % 500, grown.indexOf(1_000 + idx % 500));
+            Assertions.assertEquals(104 + idx / 2, grown.indexOf(1_000 + idx / 2));
+        }
+        Assertions.assertEquals(1, grown.indexOf(2));
+        Assertions.assertEquals(-1, grown.indexOf(1_500));
+    }
+
+    @Test
+    void small_lists__should_share_empty_and_grow_into_array_form() {
+        var empty = ImmutableList.<Integer>empty();
+        var one = empty.add(null);
+        var two = one.add(2);
+        var three = two.add(3);
+
+        Assertions.assertSame(empty, ImmutableList.empty());
+        Assertions.assertSame(empty, ImmutableList.ofIterable(List.of()));
+        Assertions.assertEquals(0, empty.size());
+        Assertions.assertEquals(1, one.size());
+        Assertions.assertNull(one.get(0));
+        Assertions.assertEquals(Arrays.asList(null, 2), two.copyTo(ArrayList::new));
+        Assertions.assertEquals(Arrays.asList(null, 2, 3), three.copyTo(ArrayList::new));
+        Assertions.assertEquals(Arrays.asList(null, 2, 4), two.add(4).copyTo(ArrayList::new));
+        Assertions.assertEquals(ImmutableList.ofIterable(Arrays.asList(null, 2)), two);
+        Assertions.assertEquals(Arrays.asList(null, 2).hashCode(), two.hashCode());
+        Assertions.assertEquals(0, two.indexOf(null));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> two.get(2));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> empty.get(0));
+        Assertions.assertEquals(List.of(1, 2, 3, 4), ImmutableList.ofAll(1, 2).combine(ImmutableList.ofAll(3, 4)).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5), ImmutableList.ofAll(1, 2, 3).combine(ImmutableList.ofAll(4, 5)).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 5, 6), ImmutableList.of(1).addIterable(List.of(5, 6)).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 7), ImmutableList.of(1).withMutations(view -> view.add(7)).copyTo(ArrayList::new));
+    }
+
+    @Test
+    void small_results__of_build_collect_materialize_and_withMutations__should_be_small_lists() {
+        var empty = ImmutableList.<Integer>empty();
+        var one = ImmutableList.of(1);
+
+        Assertions.assertSame(empty, ImmutableList.<Integer>builder().build());
+        Assertions.assertSame(empty, ImmutableList.<Integer>builder(100).build());
+        Assertions.assertSame(empty, Stream.<Integer>of().collect(ImmutableList.toImmutableList()));
+        Assertions.assertSame(empty, Stream.<Integer>of().parallel().collect(ImmutableList.toImmutableList(100)));
+        Assertions.assertSame(empty, ImmutableList.ofAll(1, 2, 3).filter(it -> it > 3).materialize());
+        Assertions.assertSame(empty, ImmutableList.ofAll(1, 2, 3).withMutations(view -> view.removeLast().removeLast().removeLast()));
+        Assertions.assertSame(empty, empty.withMutations(ImmutableList.MutableView::size));
+        Assertions.assertSame(one, one.withMutations(view -> view.get(0)));
+        Assertions.assertTrue(ImmutableList.<Integer>builder().add(1).add(2).build() instanceof SmallList<?>);
+        Assertions.assertTrue(Stream.of(1, 2).collect(ImmutableList.toImmutableList()) instanceof SmallList<?>);
+        Assertions.assertTrue(ImmutableList.ofAll(1, 2, 3).filter(it -> it > 1).materialize() instanceof SmallList<?>);
+        Assertions.assertTrue(ImmutableList.ofAll(1, 2, 3).withMutations(ImmutableList.MutableView::removeLast) instanceof SmallList<?>);
+        Assertions.assertEquals(List.of(1, 2), ImmutableList.ofAll(1, 2, 3).withMutations(ImmutableList.MutableView::removeLast).copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(2, 3), ImmutableList.ofAll(1, 2, 3).filter(it -> it > 1).materialize().copyTo(ArrayList::new));
+    }
+
     static final class ConcurrentSpec<SUBJECT> {
 
         private final int parallelism;
@@ -242,44 +1009,35 @@ class ImmutableListTest {
         SUBJECT start() {
             try {
                 var subject = subjectSupplier.get();
-                var tasksBarrier = new CyclicBarrier(actions.size());
-                var executorService = Executors.newFixedThreadPool(parallelism);
+                var tasks = actions.stream().mapToInt(Map.Entry::getKey).sum();
+                var executorService = Executors.newFixedThreadPool(Math.max(parallelism, tasks));
                 try {
+                    var barrier = new CyclicBarrier(tasks);
+                    var futures = new ArrayList<Future<?>>();
                     for (var action : actions) {
-                        executorService.submit(() -> {
-                            try {
-                                var repetitions = action.getKey();
-                                var task = action.getValue();
-                                tasksBarrier.await();
-                                if (repetitions.equals(1)) {
-                                    task.accept(subject, 1);
-                                } else {
-                                    var barrier = new CyclicBarrier(repetitions);
-                                    for (var i = 0; i < repetitions; i++) {
-                                        var iFinal = i;
-                                        executorService.submit(() -> {
-                                            try {
-                                                barrier.await();
-                                                task.accept(subject, iFinal);
-                                            } catch (InterruptedException | BrokenBarrierException e) {
-                                                throw new RuntimeException(e);
-                                            }
-                                        });
-                                    }
-                                }
-                            } catch (Exception e) {
-                                throw new RuntimeException(e);
-                            }
-                        });
+                        var repetitions = action.getKey();
+                        var task = action.getValue();
+                        for (var i = 0; i < repetitions; i++) {
+                            var iFinal = i;
+                            futures.add(executorService.submit(() -> {
+                                barrier.await();
+                                task.accept(subject, iFinal);
+                                return null;
+                            }));
+                        }
                     }
-                    executorService.shutdown();
-                    if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                        throw new TimeoutException("Failed to terminate executor service in 5 seconds");
+                    for (var future : futures) {
+                        future.get(5, TimeUnit.SECONDS);
                     }
                     return subject;
                 } finally {
-                    executorService.shutdown();
+                    executorService.shutdownNow();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
                 }
+                throw new RuntimeException(e.getCause());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
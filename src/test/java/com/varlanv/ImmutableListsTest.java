@@ -0,0 +1,165 @@
+package com.varlanv;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+class ImmutableListsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeTo_and_map__with_record_codec__should_contain_all_in_order() throws IOException {
+        var file = dir.resolve("points.bin");
+        var expected = new ArrayList<OffHeapImmutableListTest.Point>();
+        var points = ImmutableList.<OffHeapImmutableListTest.Point>empty();
+        for (var idx = 0; idx < 1_000; idx++) {
+            var point = new OffHeapImmutableListTest.Point(idx, idx / 2.0);
+            expected.add(point);
+            points = points.add(point);
+        }
+
+        ImmutableLists.writeTo(points, OffHeapImmutableListTest.POINT, file);
+
+        try (var subject = ImmutableLists.map(file, OffHeapImmutableListTest.POINT)) {
+            Assertions.assertEquals(1_000, subject.size());
+            Assertions.assertEquals(new OffHeapImmutableListTest.Point(999, 499.5), subject.getLast());
+            Assertions.assertEquals(expected, subject.copyTo(ArrayList::new));
+        }
+    }
+
+    @Test
+    void writeTo_and_map__with_primitive_lists__should_contain_all_in_order() throws IOException {
+        var ints = dir.resolve("ints.bin");
+        var longs = dir.resolve("longs.bin");
+        var doubles = dir.resolve("doubles.bin");
+
+        ImmutableLists.writeTo(ImmutableIntList.ofAll(IntStream.range(0, 10_000).toArray()), ints);
+        ImmutableLists.writeTo(ImmutableLongList.ofAll(Long.MIN_VALUE, 0L, Long.MAX_VALUE), longs);
+        ImmutableLists.writeTo(ImmutableDoubleList.ofAll(0.5, -1.5), doubles);
+
+        try (var intList = ImmutableLists.mapInts(ints);
+             var longList = ImmutableLists.mapLongs(longs);
+             var doubleList = ImmutableLists.mapDoubles(doubles)) {
+            Assertions.assertEquals(IntStream.range(0, 10_000).boxed().toList(), intList.copyTo(ArrayList::new));
+            Assertions.assertEquals(List.of(Long.MIN_VALUE, 0L, Long.MAX_VALUE), longList.copyTo(ArrayList::new));
+            Assertions.assertEquals(List.of(0.5, -1.5), doubleList.copyTo(ArrayList::new));
+        }
+    }
+
+    @Test
+    void writeTo_and_map__with_variable_width_codec__should_span_chunks() throws IOException {
+        var file = dir.resolve("strings.bin");
+        var size = ImmutableLists.VARIABLE_CHUNK_LENGTH * 2 + 3;
+        var expected = new ArrayList<String>(size);
+        for (var idx = 0; idx < size; idx++) {
+            expected.add(idx % 7 == 0 ? "" : "élément-" + idx);
+        }
+
+        ImmutableLists.writeTo(ImmutableList.ofIterable(expected), ImmutableLists.VariableCodec.UTF8, file);
+
+        try (var subject = ImmutableLists.map(file, ImmutableLists.VariableCodec.UTF8)) {
+            Assertions.assertEquals(size, subject.size());
+            Assertions.assertEquals("élément-" + (ImmutableLists.VARIABLE_CHUNK_LENGTH + 1), subject.get(ImmutableLists.VARIABLE_CHUNK_LENGTH + 1));
+            Assertions.assertEquals(expected, subject.copyTo(ArrayList::new));
+        }
+    }
+
+    @Test
+    void utf8_codec__byteSize__should_match_the_encoded_length() {
+        for (var value : List.of("", "ascii", "élément", "€uro", "😀 emoji", "lone \uD83D high", "lone \uDE00 low", "end \uD83D")) {
+            Assertions.assertEquals(value.getBytes(StandardCharsets.UTF_8).length, ImmutableLists.VariableCodec.UTF8.byteSize(value), value);
+        }
+    }
+
+    @Test
+    void writeTo_and_map__empty_list__should_be_empty() throws IOException {
+        var file = dir.resolve("empty.bin");
+
+        ImmutableLists.writeTo(ImmutableList.<Integer>empty(), OffHeapImmutableList.Codec.INT, file);
+
+        try (var subject = ImmutableLists.mapInts(file)) {
+            Assertions.assertEquals(0, subject.size());
+        }
+    }
+
+    @Test
+    void map__with_mismatching_codec_or_foreign_file__should_fail() throws IOException {
+        var ints = dir.resolve("ints.bin");
+        var foreign = dir.resolve("foreign.bin");
+        ImmutableLists.writeTo(ImmutableIntList.ofAll(1, 2, 3), ints);
+        Files.write(foreign, new byte[128]);
+
+        Assertions.assertThrows(IOException.class, () -> ImmutableLists.mapLongs(ints));
+        Assertions.assertThrows(IOException.class, () -> ImmutableLists.mapDoubles(ints));
+        Assertions.assertThrows(IOException.class, () -> ImmutableLists.map(ints, ImmutableLists.VariableCodec.UTF8));
+        Assertions.assertThrows(IOException.class, () -> ImmutableLists.mapInts(foreign));
+    }
+
+    @Test
+    void stats__should_break_down_chunks_and_slots() {
+        var nested = ImmutableList.<Integer>empty();
+        for (var idx = 0; idx < 10; idx++) {
+            nested = nested.add(idx);
+        }
+        var subject = ImmutableList.ofIterable(IntStream.range(0, 100).boxed().toList())
+                .add(0)
+                .addIterable(List.of(6, 7))
+                .combine(ImmutableList.viewOf(new LinkedList<>(List.of(4, 5))))
+                .combine(nested);
+
+        var stats = ImmutableLists.stats(subject);
+
+        Assertions.assertEquals(subject.size(), stats.size());
+        Assertions.assertEquals(5, stats.chunkCount());
+        Assertions.assertEquals(1, stats.elementChunks());
+        Assertions.assertEquals(2, stats.arrayChunks());
+        Assertions.assertEquals(1, stats.listChunks());
+        Assertions.assertEquals(1, stats.iterableChunks());
+        Assertions.assertEquals(Map.of(LinkedList.class.getName(), 1), stats.viewedIterables());
+        Assertions.assertEquals(5, stats.usedSlots());
+        Assertions.assertEquals(stats.arrayLength() - 5, stats.unusedSlots());
+        Assertions.assertEquals(1, stats.depth());
+        Assertions.assertTrue(stats.retainedBytes() > stats.shallowBytes() + 100 * 4);
+        Assertions.assertEquals(0, ImmutableLists.stats(ImmutableList.empty()).chunkCount());
+        Assertions.assertTrue(ImmutableLists.stats(subject.slice(1, subject.size())).retainedBytes() > stats.retainedBytes());
+    }
+
+    @Test
+    void sample__should_aggregate_into_registered_mbean() throws Exception {
+        var registry = ImmutableLists.statsRegistry();
+        var rate = registry.getSampleRate();
+        try {
+            registry.reset();
+            registry.setSampleRate(1);
+            ImmutableLists.sample(ImmutableList.ofAll(1, 2, 3).add(4));
+            ImmutableLists.sample(ImmutableList.ofAll(5, 6));
+
+            var name = ImmutableLists.registerStatsMBean();
+            var server = ManagementFactory.getPlatformMBeanServer();
+
+            Assertions.assertEquals(name, ImmutableLists.registerStatsMBean());
+            Assertions.assertEquals(2L, server.getAttribute(name, "Sampled"));
+            Assertions.assertEquals(6L, server.getAttribute(name, "Elements"));
+            Assertions.assertEquals(2L, registry.getChunks());
+            registry.setSampleRate(0);
+            ImmutableLists.sample(ImmutableList.of(7));
+            Assertions.assertEquals(2L, registry.getOffered());
+        } finally {
+            registry.reset();
+            registry.setSampleRate(rate);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.varlanv;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.stream.IntStream;
+
+class ImmutablePrimitiveListTest {
+
+    @Test
+    void int_add_twice_to_same_version__should_not_see_each_other() {
+        var base = ImmutableIntList.of(1).add(2);
+        var left = base.add(3);
+        var right = base.add(4);
+
+        Assertions.assertArrayEquals(new int[]{1, 2}, base.toArray());
+        Assertions.assertArrayEquals(new int[]{1, 2, 3}, left.toArray());
+        Assertions.assertArrayEquals(new int[]{1, 2, 4}, right.toArray());
+    }
+
+    @Test
+    void int_add_100_000__should_contain_all_in_order() {
+        var subject = ImmutableIntList.empty();
+        for (var i = 0; i < 100_000; i++) {
+            subject = subject.add(i);
+        }
+
+        Assertions.assertEquals(100_000, subject.size());
+        Assertions.assertArrayEquals(IntStream.range(0, 100_000).toArray(), subject.toArray());
+        Assertions.assertEquals(4_999_950_000L, subject.sum());
+        Assertions.assertEquals(OptionalInt.of(0), subject.min());
+        Assertions.assertEquals(OptionalInt.of(99_999), subject.max());
+        Assertions.assertEquals(4_999_950_000L, subject.stream().parallel().asLongStream().sum());
+    }
+
+    @Test
+    void int_addAll_and_combine__should_contain_all_in_order() {
+        var left = ImmutableIntList.ofAll(1, 2).addAll(3, 4);
+        var right = ImmutableIntList.of(5).addAll(6);
+
+        var actual = left.combine(right);
+
+        Assertions.assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, actual.toArray());
+        Assertions.assertArrayEquals(new int[]{1, 2, 3, 4}, left.toArray());
+        Assertions.assertEquals(4, actual.get(3));
+        Assertions.assertEquals(4, actual.indexOf(5));
+        Assertions.assertTrue(actual.contains(6));
+        Assertions.assertFalse(actual.contains(7));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> actual.get(6));
+    }
+
+    @Test
+    void int_forEach__should_visit_all_in_order() {
+        var visited = new ArrayList<Integer>();
+        ImmutableIntList.ofAll(3, 1, 2).forEach(visited::add);
+
+        Assertions.assertEquals(List.of(3, 1, 2), visited);
+    }
+
+    @Test
+    void int_of_empty__aggregates_should_be_empty() {
+        var subject = ImmutableIntList.empty();
+
+        Assertions.assertEquals(0, subject.sum());
+        Assertions.assertEquals(OptionalInt.empty(), subject.min());
+        Assertions.assertEquals(OptionalInt.empty(), subject.max());
+    }
+
+    @Test
+    void long_add_and_combine__should_contain_all_in_order() {
+        var subject = ImmutableLongList.of(Long.MAX_VALUE)
+                .add(-1)
+                .combine(ImmutableLongList.ofAll(5, 6));
+
+        Assertions.assertArrayEquals(new long[]{Long.MAX_VALUE, -1, 5, 6}, subject.toArray());
+        Assertions.assertEquals(OptionalLong.of(-1), subject.min());
+        Assertions.assertEquals(OptionalLong.of(Long.MAX_VALUE), subject.max());
+        Assertions.assertEquals(4, subject.stream().count());
+    }
+
+    @Test
+    void double_add_and_combine__should_contain_all_in_order() {
+        var subject = ImmutableDoubleList.of(0.5)
+                .add(1.5)
+                .combine(ImmutableDoubleList.ofAll(2.0, Double.NaN));
+
+        Assertions.assertArrayEquals(new double[]{0.5, 1.5, 2.0, Double.NaN}, subject.toArray());
+        Assertions.assertEquals(3, subject.indexOf(Double.NaN));
+        Assertions.assertEquals(4.0, ImmutableDoubleList.ofAll(0.5, 1.5, 2.0).sum());
+        Assertions.assertEquals(OptionalDouble.of(0.5), ImmutableDoubleList.ofAll(0.5, 1.5, 2.0).min());
+        Assertions.assertEquals(2.0, ImmutableDoubleList.ofAll(0.5, 1.5, 2.0).stream().max().orElseThrow());
+    }
+}
@@ -0,0 +1,129 @@
+package com.varlanv;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+class ImmutableVectorTest {
+
+    @Test
+    void ofAll_and_add__should_contain_all_in_order() {
+        var expected = IntStream.range(0, 5_000).boxed().toList();
+        var added = ImmutableVector.<Integer>empty();
+        for (var item : expected) {
+            added = added.add(item);
+        }
+
+        Assertions.assertEquals(expected, added.copyTo(ArrayList::new));
+        Assertions.assertEquals(expected, ImmutableVector.ofIterable(expected).copyTo(ArrayList::new));
+        Assertions.assertEquals(4_321, added.get(4_321));
+        Assertions.assertEquals(4_999, added.getLast());
+    }
+
+    @Test
+    void set_insert_removeAt__should_leave_previous_versions_untouched() {
+        var subject = ImmutableVector.ofIterable(IntStream.range(0, 1_000).boxed().toList());
+
+        var updated = subject.set(500, -1);
+        var inserted = subject.insert(0, -2);
+        var removed = subject.removeAt(999);
+
+        Assertions.assertEquals(500, subject.get(500));
+        Assertions.assertEquals(-1, updated.get(500));
+        Assertions.assertEquals(1_001, inserted.size());
+        Assertions.assertEquals(-2, inserted.getFirst());
+        Assertions.assertEquals(999, inserted.getLast());
+        Assertions.assertEquals(998, removed.getLast());
+        Assertions.assertEquals(1_000, subject.size());
+    }
+
+    @Test
+    void slice_and_concat__should_share_and_stay_indexable() {
+        var subject = ImmutableVector.ofIterable(IntStream.range(0, 10_000).boxed().toList());
+
+        var middle = subject.slice(1_234, 8_765);
+        var rejoined = subject.slice(0, 1_234).concat(middle).concat(subject.slice(8_765, 10_000));
+
+        Assertions.assertEquals(IntStream.range(1_234, 8_765).boxed().toList(), middle.copyTo(ArrayList::new));
+        Assertions.assertEquals(IntStream.range(0, 10_000).boxed().toList(), rejoined.copyTo(ArrayList::new));
+        Assertions.assertEquals(9_999, rejoined.get(9_999));
+        Assertions.assertEquals(0, subject.slice(5, 5).size());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> subject.slice(5, 10_001));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> subject.insert(10_001, 0));
+    }
+
+    @Test
+    void concat__repeated_on_the_left__should_keep_height_logarithmic() {
+        var subject = ImmutableVector.<Integer>empty();
+        for (var step = 0; step < 20_000; step++) {
+            subject = ImmutableVector.ofIterable(Collections.nCopies(40, step)).concat(subject);
+        }
+        var expected = new ArrayList<Integer>();
+        for (var step = 19_999; step >= 0; step--) {
+            expected.addAll(Collections.nCopies(40, step));
+        }
+
+        // 800_000 elements need 3 levels of 32-wide nodes above the leaves, rebalancing may leave thin nodes worth a level or two
+        var height = ((RrbVector<Integer>) subject).height();
+        Assertions.assertTrue(height <= 5, "height: " + height);
+        Assertions.assertEquals(expected, subject.copyTo(ArrayList::new));
+        Assertions.assertEquals(19_999, subject.getFirst());
+        Assertions.assertEquals(0, subject.getLast());
+    }
+
+    @Test
+    void combine__with_other_list__should_copy_it_in() {
+        var subject = ImmutableVector.ofAll(1, 2, 3).combine(ImmutableList.ofAll(4, 5)).addIterable(List.of(6));
+
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6), subject.copyTo(ArrayList::new));
+    }
+
+    @Test
+    void random_operations__should_match_array_list() {
+        var random = new Random(42);
+        var expected = new ArrayList<Integer>();
+        var subject = ImmutableVector.<Integer>empty();
+        for (var step = 0; step < 20_000; step++) {
+            var op = random.nextInt(10);
+            var size = expected.size();
+            if (op < 3 || size == 0) {
+                expected.add(step);
+                subject = subject.add(step);
+            } else if (op < 5) {
+                var idx = random.nextInt(size + 1);
+                expected.add(idx, step);
+                subject = subject.insert(idx, step);
+            } else if (op < 6) {
+                var idx = random.nextInt(size);
+                expected.set(idx, step);
+                subject = subject.set(idx, step);
+            } else if (op < 8) {
+                var idx = random.nextInt(size);
+                expected.remove(idx);
+                subject = subject.removeAt(idx);
+            } else if (op < 9) {
+                var from = random.nextInt(size);
+                var to = from + random.nextInt(size - from + 1);
+                var slice = new ArrayList<>(expected.subList(from, to));
+                expected.addAll(slice);
+                subject = subject.concat(subject.slice(from, to));
+            } else {
+                var from = random.nextInt(size / 4 + 1);
+                var to = size - random.nextInt(size / 4 + 1);
+                expected = new ArrayList<>(expected.subList(from, to));
+                subject = subject.slice(from, to);
+            }
+            Assertions.assertEquals(expected.size(), subject.size());
+            if (!expected.isEmpty()) {
+                var idx = random.nextInt(expected.size());
+                Assertions.assertEquals(expected.get(idx), subject.get(idx));
+            }
+        }
+        Assertions.assertEquals(expected, subject.copyTo(ArrayList::new));
+    }
+}
@@ -0,0 +1,84 @@
+package com.varlanv;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ListEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void costly_paths__should_be_recorded_once_enabled() throws IOException {
+        var file = dir.resolve("events.jfr");
+        var small = ImmutableList.<Integer>empty();
+        for (var idx = 0; idx < 10; idx++) {
+            small = small.addIterable(List.of(idx, idx));
+        }
+        var smallChunks = ImmutableLists.stats(small).chunkCount();
+        try (var recording = new Recording()) {
+            for (var name : List.of("com.varlanv.ArrayCopy", "com.varlanv.OpaqueTraversal", "com.varlanv.Compaction", "com.varlanv.SlotTaken")) {
+                recording.enable(name);
+            }
+            recording.start();
+
+            // viewed chunks too large to be merged, so the backing array holds one slot per chunk
+            var chunk = ImmutableList.viewOf(IntStream.range(0, 40).boxed().toList());
+            var list = ImmutableList.<Integer>empty();
+            for (var idx = 0; idx < ListEvents.MIN_COPY_CHUNKS; idx++) {
+                list = list.combine(chunk);
+            }
+            list.add(-1);
+            // the second add on a version always copies, leaving room to claim in the new array
+            var base = list.add(-1);
+            base.add(-2);
+            base.add(-3);
+            small.compact();
+            // nothing to merge, so no copy and no event
+            Assertions.assertSame(list, list.compact());
+            Iterable<Integer> opaque = () -> IntStream.range(0, 10).iterator();
+            var counter = new AtomicInteger();
+            ImmutableList.of(0).combine(ImmutableList.viewOf(opaque)).forEach(item -> counter.incrementAndGet());
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file).stream()
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+
+        var copied = ListEvents.MIN_COPY_CHUNKS + 1;
+        Assertions.assertEquals(1, events.get("com.varlanv.ArrayCopy").stream()
+                .filter(event -> event.getInt("chunks") == copied)
+                .count());
+        Assertions.assertEquals(1, events.get("com.varlanv.SlotTaken").stream()
+                .filter(event -> event.getInt("chunks") == copied && event.getInt("elements") == copied * 40 - 39)
+                .count());
+        Assertions.assertEquals(1, events.get("com.varlanv.Compaction").size());
+        Assertions.assertEquals(1, events.get("com.varlanv.Compaction").stream()
+                .filter(event -> event.getInt("chunksBefore") == smallChunks && event.getInt("chunksAfter") == 1)
+                .count());
+        Assertions.assertEquals(List.of("size", "forEach"), events.get("com.varlanv.OpaqueTraversal").stream()
+                .map(event -> event.getString("operation"))
+                .toList());
+        Assertions.assertEquals(10, events.get("com.varlanv.OpaqueTraversal").get(1).getInt("elements"));
+    }
+
+    @Test
+    void events__should_be_disabled_by_default() {
+        Assertions.assertFalse(new ListEvents.ArrayCopy().isEnabled());
+        Assertions.assertFalse(new ListEvents.OpaqueTraversal().isEnabled());
+        Assertions.assertFalse(new ListEvents.Compaction().isEnabled());
+        Assertions.assertFalse(new ListEvents.SlotTaken().isEnabled());
+    }
+}
@@ -0,0 +1,92 @@
+package com.varlanv;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+class OffHeapImmutableListTest {
+
+    record Point(int x, double y) {
+    }
+
+    static final OffHeapImmutableList.Codec<Point> POINT = new OffHeapImmutableList.Codec<>() {
+
+        @Override
+        public int byteSize() {
+            return Integer.BYTES + Double.BYTES;
+        }
+
+        @Override
+        public Point read(ByteBuffer buffer, int offset) {
+            return new Point(buffer.getInt(offset), buffer.getDouble(offset + Integer.BYTES));
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Point value) {
+            buffer.putInt(offset, value.x());
+            buffer.putDouble(offset + Integer.BYTES, value.y());
+        }
+    };
+
+    @Test
+    void ofInts__should_contain_all_in_order() {
+        try (var subject = OffHeapImmutableList.ofInts(IntStream.range(0, 10_000).toArray())) {
+            Assertions.assertEquals(10_000, subject.size());
+            Assertions.assertEquals(1234, subject.get(1234));
+            Assertions.assertEquals(IntStream.range(0, 10_000).boxed().toList(), subject.copyTo(ArrayList::new));
+            Assertions.assertEquals(49_995_000L, subject.parallelStream().mapToLong(it -> it).sum());
+            Assertions.assertEquals(9_999, subject.indexOf(9_999));
+        }
+    }
+
+    @Test
+    void ofLongs_and_ofDoubles__should_contain_all_in_order() {
+        try (var longs = OffHeapImmutableList.ofLongs(Long.MIN_VALUE, 0, Long.MAX_VALUE);
+             var doubles = OffHeapImmutableList.ofDoubles(0.5, -1.5)) {
+            Assertions.assertEquals(List.of(Long.MIN_VALUE, 0L, Long.MAX_VALUE), longs.copyTo(ArrayList::new));
+            Assertions.assertEquals(List.of(0.5, -1.5), doubles.stream().toList());
+        }
+    }
+
+    @Test
+    void copyOf__with_record_codec__should_contain_all_in_order() {
+        var points = List.of(new Point(1, 0.5), new Point(2, 1.5), new Point(3, 2.5));
+        try (var subject = OffHeapImmutableList.copyOf(POINT, points)) {
+            var indexed = new ArrayList<String>();
+            subject.forEachIndexed((point, idx) -> indexed.add(idx + ":" + point.x()));
+
+            Assertions.assertEquals(points, subject.copyTo(ArrayList::new));
+            Assertions.assertEquals(new Point(3, 2.5), subject.getLast());
+            Assertions.assertEquals(List.of("0:1", "1:2", "2:3"), indexed);
+        }
+    }
+
+    @Test
+    void add_and_combine__should_derive_heap_versions() {
+        try (var subject = OffHeapImmutableList.ofInts(1, 2, 3)) {
+            var actual = subject.add(4).combine(ImmutableList.ofAll(5, 6));
+
+            Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6), actual.copyTo(ArrayList::new));
+            Assertions.assertEquals(2, actual.get(1));
+        }
+    }
+
+    @Test
+    void closed__should_fail_reads() {
+        var subject = OffHeapImmutableList.copyOf(OffHeapImmutableList.Codec.INT, ImmutableList.ofAll(1, 2));
+        var derived = subject.add(3);
+
+        subject.close();
+
+        Assertions.assertTrue(subject.isClosed());
+        Assertions.assertEquals(2, subject.size());
+        Assertions.assertThrows(IllegalStateException.class, () -> subject.get(0));
+        Assertions.assertThrows(IllegalStateException.class, () -> subject.forEach(it -> {
+        }));
+        Assertions.assertThrows(IllegalStateException.class, () -> derived.get(0));
+    }
+}
@@ -3,12 +3,19 @@ package com.varlanv;
 import io.vavr.collection.Array;
 import io.vavr.collection.Stream;
 import io.vavr.collection.Vector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.ref.Reference;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.IntStream;
 
 class PerfTest {
@@ -60,6 +67,142 @@ class PerfTest {
 //        Result{average=296.82μs, min=0ns, max=361.65μs}
     }
 
+    @Test
+    void immutable_forEach_should_not_allocate() {
+        var counter = new AtomicInteger();
+        Consumer<Integer> action = item -> counter.incrementAndGet();
+        ObjIntConsumer<Integer> indexedAction = (item, idx) -> counter.addAndGet(idx);
+        var added = ImmutableList.<Integer>empty();
+        for (var i : list) {
+            added = added.add(i);
+        }
+        var chunked = ImmutableList.of(1).addIterable(list).combine(added);
+        var result = Bench.bench().addSubject(spec -> spec
+                        .named("immutable")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            chunked.forEach(action);
+                            chunked.forEachIndexed(indexedAction);
+                        }))
+                .run();
+        System.out.println(result);
+        // average=3.77ms allocated=0B; under -Xint or an agent the lambdas' captures are not scalar-replaced
+        Assumptions.assumeTrue(Bench.escapeAnalysisActive(), "needs C2 with escape analysis and no agents");
+        Assertions.assertEquals(0, result.allocatedBytes());
+    }
+
+    @Test
+    void immutable_map_filter_chain_should_allocate_only_the_result() {
+        var counter = new AtomicInteger();
+        Consumer<Integer> action = item -> counter.incrementAndGet();
+        var chain = immutableList
+                .map(it -> list.get(list.size() - 1 - it))
+                .filter(it -> it % 3 != 0)
+                .takeWhile(it -> it >= 0);
+        var traversal = Bench.bench().addSubject(spec -> spec
+                        .named("traverse chain")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> chain.forEach(action)))
+                .run();
+        var materialized = Bench.bench().addSubject(spec -> spec
+                        .named("materialize chain")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> counter.addAndGet(immutableList.map(it -> list.get(list.size() - 1 - it))
+                                .filter(it -> it % 3 != 0)
+                                .materialize()
+                                .size())))
+                .run();
+        System.out.println(traversal);
+        System.out.println(materialized);
+        System.out.println(counter);
+        // traverse allocated=72B, materialize allocated=667056B (the source-sized array and the trimmed result)
+    }
+
+    @Test
+    void immutable_paginate_with_slice_vs_copy() {
+        var counter = new AtomicInteger();
+        Consumer<Integer> action = item -> counter.incrementAndGet();
+        var pageSize = 20_000;
+        Bench.bench().addSubject(spec -> spec
+                        .named("slice")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            for (var from = 0; from < immutableList.size(); from += pageSize) {
+                                immutableList.drop(from).take(pageSize).forEach(action);
+                            }
+                        }))
+                .addSubject(spec -> spec
+                        .named("copy")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            var copy = immutableList.copyTo(ArrayList::new);
+                            for (var from = 0; from < copy.size(); from += pageSize) {
+                                copy.subList(from, Math.min(from + pageSize, copy.size())).forEach(action);
+                            }
+                        }))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // slice average=909.61μs allocated=192B, copy average=2.08ms allocated=1281128B
+    }
+
+    @Test
+    void immutable_iterator_should_allocate_only_itself() {
+        var counter = new AtomicInteger();
+        var chunked = ImmutableList.of(1).addIterable(list).combine(immutableList).add(2);
+        var result = Bench.bench().addSubject(spec -> spec
+                        .named("iterator")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            for (var item : chunked) {
+                                counter.addAndGet(item);
+                            }
+                        }))
+                .run();
+        System.out.println(result);
+        // average=2.71ms allocated=48B, the iterator itself
+    }
+
+    @Test
+    void immutable_traverse_built_from_1_10_100_000_additions() {
+        var counter = new AtomicInteger();
+        Consumer<Integer> action = item -> counter.incrementAndGet();
+        var fromOne = ImmutableList.ofIterable(list);
+        var fromTen = ImmutableList.<Integer>empty();
+        for (var i = 0; i < 10; i++) {
+            fromTen = fromTen.addIterable(list.subList(i * 10_000, (i + 1) * 10_000));
+        }
+        var fromHundredThousand = ImmutableList.<Integer>empty();
+        for (var i : list) {
+            fromHundredThousand = fromHundredThousand.add(i);
+        }
+        var fromTenFinal = fromTen;
+        var fromHundredThousandFinal = fromHundredThousand;
+        Bench.bench().addSubject(spec -> spec
+                        .named("1 addition")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> fromOne.forEach(action)))
+                .addSubject(spec -> spec
+                        .named("10 additions")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> fromTenFinal.forEach(action)))
+                .addSubject(spec -> spec
+                        .named("100_000 additions")
+                        .withWarmupCycles(200)
+                        .withIterations(500)
+                        .withAction(() -> fromHundredThousandFinal.forEach(action)))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // 1 addition average=994.18μs, 10 additions average=960.69μs, 100_000 additions average=985.01μs (9 chunks)
+    }
+
     @Test
     void vavr_add_one_big_list() {
         var counter = new AtomicInteger();
@@ -98,7 +241,199 @@ class PerfTest {
                         }))
                 .runAndPrintResult();
         System.out.println(counter);
-        // average=633.78ms
+        // average=3.32ms
+    }
+
+    @Test
+    void immutable_builder_add_one_element_many_times() {
+        var counter = new AtomicInteger();
+        Bench.bench().addSubject(spec -> spec
+                        .named("immutable builder")
+                        .withWarmupCycles(100)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            var builder = ImmutableList.<Integer>builder().add(1);
+                            for (var i : list) {
+                                builder.add(i);
+                            }
+                            counter.addAndGet(builder.build().size());
+                        }))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // average=537.89μs
+    }
+
+    @Test
+    void immutable_batch_of_edits_add_vs_withMutations() {
+        var counter = new AtomicInteger();
+        var batch = list.subList(0, 500);
+        Bench.bench().addSubject(spec -> spec
+                        .named("persistent add")
+                        .withWarmupCycles(200)
+                        .withIterations(2_000)
+                        .withAction(() -> {
+                            var integers = immutableList;
+                            for (var i : batch) {
+                                integers = integers.add(i);
+                            }
+                            counter.addAndGet(integers.size());
+                        }))
+                .addSubject(spec -> spec
+                        .named("withMutations")
+                        .withWarmupCycles(200)
+                        .withIterations(2_000)
+                        .withAction(() -> {
+                            var integers = immutableList.withMutations(view -> {
+                                for (var i : batch) {
+                                    view.add(i);
+                                }
+                            });
+                            counter.addAndGet(integers.size());
+                        }))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // persistent add allocated=35154B, withMutations allocated=2424B
+    }
+
+    @Test
+    void immutable_equals_and_hashCode_of_versions_sharing_chunks() {
+        var counter = new AtomicInteger();
+        var left = immutableList.add(1);
+        var right = immutableList.add(1);
+        var copy = ImmutableList.ofIterable(left.copyTo(ArrayList::new));
+        Bench.bench().addSubject(spec -> spec
+                        .named("equals shared")
+                        .withWarmupCycles(200)
+                        .withIterations(2_000)
+                        .withAction(() -> counter.addAndGet(left.equals(right) ? 1 : 0)))
+                .addSubject(spec -> spec
+                        .named("equals copy")
+                        .withWarmupCycles(200)
+                        .withIterations(2_000)
+                        .withAction(() -> counter.addAndGet(left.equals(copy) ? 1 : 0)))
+                .addSubject(spec -> spec
+                        .named("hashCode")
+                        .withWarmupCycles(200)
+                        .withIterations(2_000)
+                        .withAction(() -> counter.addAndGet(left.hashCode())))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // equals shared average=459.50ns, equals copy average=561.37μs, hashCode (cached) average=438.46ns
+    }
+
+    @Test
+    void immutable_copyTo_and_toArray_vs_arraylist_copy() {
+        var counter = new AtomicInteger();
+        var chunked = immutableList.addIterable(list).add(1);
+        var arrayList = new ArrayList<>(chunked.asList());
+        Bench.bench().addSubject(spec -> spec
+                        .named("arraylist copy")
+                        .withWarmupCycles(200)
+                        .withIterations(1_000)
+                        .withAction(() -> counter.addAndGet(new ArrayList<>(arrayList).size())))
+                .addSubject(spec -> spec
+                        .named("copyTo ArrayList")
+                        .withWarmupCycles(200)
+                        .withIterations(1_000)
+                        .withAction(() -> counter.addAndGet(chunked.copyTo(ArrayList::new).size())))
+                .addSubject(spec -> spec
+                        .named("toArray")
+                        .withWarmupCycles(200)
+                        .withIterations(1_000)
+                        .withAction(() -> counter.addAndGet(chunked.toArray(Integer[]::new).length)))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // arraylist copy average=95.94μs 800048B, copyTo ArrayList average=207.74μs 1600096B, toArray average=425.09μs 800024B
+        // before: copyTo ArrayList added element by element with repeated growth
+    }
+
+    @Test
+    void immutable_sorted_lookup_vs_scan() {
+        var counter = new AtomicInteger();
+        var random = new Random(42);
+        var shuffled = ImmutableList.ofIterable(random.ints(100_000, 0, 1_000_000).boxed().toList());
+        var sorted = shuffled.sorted(Comparator.naturalOrder());
+        Bench.bench().addSubject(spec -> spec
+                        .named("sort 100_000")
+                        .withWarmupCycles(20)
+                        .withIterations(100)
+                        .withAction(() -> counter.addAndGet(shuffled.sorted(Comparator.naturalOrder()).size())))
+                .addSubject(spec -> spec
+                        .named("indexOf scan")
+                        .withWarmupCycles(20)
+                        .withIterations(100)
+                        .withAction(() -> counter.addAndGet(shuffled.indexOf(random.nextInt(1_000_000)))))
+                .addSubject(spec -> spec
+                        .named("indexOf sorted")
+                        .withWarmupCycles(20)
+                        .withIterations(100)
+                        .withAction(() -> counter.addAndGet(sorted.indexOf(random.nextInt(1_000_000)))))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // sort 100_000 average=25.29ms, indexOf scan average=561.41μs, indexOf sorted average=2.65μs
+    }
+
+    @Test
+    void immutable_indexOf_indexed_vs_scan() {
+        var counter = new AtomicInteger();
+        var random = new Random(42);
+        var indexed = ImmutableList.ofIterable(list).indexed();
+        indexed.indexOf(0);
+        Bench.bench().addSubject(spec -> spec
+                        .named("indexOf scan")
+                        .withWarmupCycles(20)
+                        .withIterations(200)
+                        .withAction(() -> counter.addAndGet(immutableList.indexOf(random.nextInt(100_000)))))
+                .addSubject(spec -> spec
+                        .named("indexOf indexed")
+                        .withWarmupCycles(20)
+                        .withIterations(200)
+                        .withAction(() -> counter.addAndGet(indexed.indexOf(random.nextInt(100_000)))))
+                .addSubject(spec -> spec
+                        .named("add then indexOf indexed")
+                        .withWarmupCycles(20)
+                        .withIterations(200)
+                        .withAction(() -> counter.addAndGet(indexed.add(-1).indexOf(-1))))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // indexOf scan average=122.14μs, indexOf indexed average=8.53μs, add then indexOf indexed average=10.07μs 464B
+    }
+
+    @Test
+    void immutable_retained_bytes_per_small_list() {
+        var count = 100_000;
+        for (var size = 0; size <= 16; size++) {
+            var items = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+            var ofAll = new ImmutableList<?>[count];
+            var before = usedMemoryAfterGc();
+            for (var idx = 0; idx < count; idx++) {
+                ofAll[idx] = ImmutableList.ofAll(items);
+            }
+            var ofAllBytes = (usedMemoryAfterGc() - before) / count;
+            var added = new ImmutableList<?>[count];
+            before = usedMemoryAfterGc();
+            for (var idx = 0; idx < count; idx++) {
+                var list = ImmutableList.<Integer>empty();
+                for (var item : items) {
+                    list = list.add(item);
+                }
+                added[idx] = list;
+            }
+            var addedBytes = (usedMemoryAfterGc() - before) / count;
+            System.out.println("size " + size + ": ofAll " + ofAllBytes + "B, add " + addedBytes + "B");
+            Reference.reachabilityFence(ofAll);
+            Reference.reachabilityFence(added);
+        }
+        // sizes 0, 1, 2: ofAll 0B, 15B, 24B and add 0B, 23B, 24B (before: ofAll 95B, 82B, 119B and add 96B, 96B, 159B)
+        // sizes 3-8 add 143B (before 159B), larger sizes unchanged
+    }
+
+    private static long usedMemoryAfterGc() {
+        var runtime = Runtime.getRuntime();
+        for (var idx = 0; idx < 3; idx++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
     }
 
     @Test
@@ -158,6 +493,63 @@ class PerfTest {
         // average=7.43ms
     }
 
+    @Test
+    void immutable_vector_add_one_element_many_times() {
+        var counter = new AtomicInteger();
+        Bench.bench().addSubject(spec -> spec
+                        .named("immutable vector")
+                        .withWarmupCycles(50)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            var integers = ImmutableVector.of(1);
+                            for (var i : list) {
+                                integers = integers.add(i);
+                            }
+                            counter.addAndGet(integers.size());
+                        }))
+                .runAndPrintResult();
+        System.out.println(counter);
+        // average=3.43ms
+    }
+
+    @Test
+    void immutable_vector_vs_vavr_vector_set_insert_removeAt_slice() {
+        var counter = new AtomicInteger();
+        var vector = ImmutableVector.ofIterable(list);
+        var vavrVector = Vector.ofAll(list);
+        var positions = new Random(42).ints(1_000, 0, list.size() - 1_000).toArray();
+        Bench.bench().addSubject(spec -> spec
+                        .named("immutable vector")
+                        .withWarmupCycles(50)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            var integers = vector;
+                            for (var position : positions) {
+                                integers = integers.set(position, position)
+                                        .insert(position, position)
+                                        .removeAt(position + 1)
+                                        .slice(1, integers.size());
+                            }
+                            counter.addAndGet(integers.size());
+                        }))
+                .addSubject(spec -> spec
+                        .named("vavr vector")
+                        .withWarmupCycles(50)
+                        .withIterations(500)
+                        .withAction(() -> {
+                            var integers = vavrVector;
+                            for (var position : positions) {
+                                integers = integers.update(position, position)
+                                        .insert(position, position)
+                                        .removeAt(position + 1)
+                                        .slice(1, integers.size());
+                            }
+                            counter.addAndGet(integers.size());
+                        }))
+                .runAndPrintResult();
+        System.out.println(counter);
+    }
+
     @Test
     void vavr_array_add_one_element_many_times() {
         var counter = new AtomicInteger();
@@ -0,0 +1,102 @@
+package com.varlanv;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+class SortedImmutableListTest {
+
+    @Test
+    void sorted__should_order_all_chunks_and_remember_comparator() {
+        var subject = ImmutableList.ofAll(5, 3).addIterable(List.of(9, 1)).add(7).sorted(Comparator.naturalOrder());
+
+        Assertions.assertEquals(List.of(1, 3, 5, 7, 9), subject.copyTo(ArrayList::new));
+        Assertions.assertEquals(Comparator.naturalOrder(), subject.comparator());
+        Assertions.assertSame(subject, subject.sorted(Comparator.naturalOrder()));
+        Assertions.assertEquals(List.of(9, 7, 5, 3, 1), subject.sorted(Comparator.reverseOrder()).copyTo(ArrayList::new));
+    }
+
+    @Test
+    void asList__should_be_random_access() {
+        var actual = ImmutableList.ofAll(3, 1, 2).sorted(Comparator.naturalOrder()).asList();
+
+        Assertions.assertTrue(actual instanceof RandomAccess);
+        Assertions.assertEquals(List.of(1, 2, 3), actual);
+    }
+
+    @Test
+    void sorted__large_input__should_match_list_sort() {
+        var random = new Random(42);
+        var expected = new ArrayList<Integer>();
+        for (var idx = 0; idx < SortedArrayList.PARALLEL_SORT_THRESHOLD * 4; idx++) {
+            expected.add(random.nextInt(1_000));
+        }
+        var subject = ImmutableList.ofIterable(expected).sorted(Comparator.naturalOrder());
+        expected.sort(Comparator.naturalOrder());
+
+        Assertions.assertEquals(expected, subject.copyTo(ArrayList::new));
+        Assertions.assertEquals(expected.indexOf(500), subject.indexOf(500));
+        Assertions.assertEquals(expected.lastIndexOf(500), subject.lastIndexOf(500));
+    }
+
+    @Test
+    void binarySearch_indexOf_contains__should_find_first_of_equal_elements() {
+        var subject = ImmutableList.ofAll(1, 3, 3, 3, 5).sorted(Comparator.naturalOrder());
+
+        Assertions.assertEquals(1, subject.binarySearch(3));
+        Assertions.assertEquals(-1, subject.binarySearch(0));
+        Assertions.assertEquals(-2, subject.binarySearch(2));
+        Assertions.assertEquals(-6, subject.binarySearch(6));
+        Assertions.assertEquals(1, subject.indexOf(3));
+        Assertions.assertEquals(3, subject.lastIndexOf(3));
+        Assertions.assertTrue(subject.contains(5));
+        Assertions.assertFalse(subject.contains(4));
+        Assertions.assertFalse(subject.contains("3"));
+    }
+
+    @Test
+    void indexOf__with_comparator_inconsistent_with_equals__should_use_equals() {
+        var subject = ImmutableList.ofAll("b", "A", "a", "B").sorted(String.CASE_INSENSITIVE_ORDER);
+
+        Assertions.assertEquals(List.of("A", "a", "b", "B"), subject.copyTo(ArrayList::new));
+        Assertions.assertEquals(1, subject.indexOf("a"));
+        Assertions.assertEquals(0, subject.binarySearch("a"));
+        Assertions.assertFalse(subject.contains("c"));
+    }
+
+    @Test
+    void insertSorted_and_merge__should_keep_order_and_leave_sources_untouched() {
+        var subject = ImmutableList.ofAll(1, 4, 7).sorted(Comparator.naturalOrder());
+
+        var inserted = subject.insertSorted(5).insertSorted(0).insertSorted(9);
+        var merged = subject.merge(ImmutableList.ofAll(8, 2, 4).sorted(Comparator.naturalOrder()));
+        var mergedReversed = subject.merge(ImmutableList.ofAll(2, 8).sorted(Comparator.reverseOrder()));
+
+        Assertions.assertEquals(List.of(0, 1, 4, 5, 7, 9), inserted.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 4, 4, 7, 8), merged.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 2, 4, 7, 8), mergedReversed.copyTo(ArrayList::new));
+        Assertions.assertEquals(List.of(1, 4, 7), subject.copyTo(ArrayList::new));
+        Assertions.assertEquals(ImmutableList.ofAll(1, 4, 7, 10), subject.add(10));
+    }
+
+    @Test
+    void merge__should_match_sorting_the_concatenation() {
+        var random = new Random(7);
+        var left = IntStream.range(0, 1_000).map(idx -> random.nextInt(100)).boxed().toList();
+        var right = IntStream.range(0, 700).map(idx -> random.nextInt(100)).boxed().toList();
+        var expected = new ArrayList<>(left);
+        expected.addAll(right);
+        expected.sort(Comparator.naturalOrder());
+
+        var merged = ImmutableList.ofIterable(left).sorted(Comparator.naturalOrder())
+                .merge(ImmutableList.ofIterable(right).sorted(Comparator.naturalOrder()));
+
+        Assertions.assertEquals(expected, merged.copyTo(ArrayList::new));
+    }
+}